@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures one engine shared by concurrent callers.
+ * <p>Each operation creates a script through the shared engine and executes it, as a request thread would;
+ * this exercises the expression cache, the introspector, namespace resolution and the per-node caches.
+ * The modes are:</p>
+ * <ul>
+ * <li>cold: the engine has no expression cache, every operation parses its script</li>
+ * <li>warm: the scripts fit in the expression cache, every operation hits it</li>
+ * <li>thrash: the scripts outnumber the expression cache, entries are constantly evicted</li>
+ * </ul>
+ * <p>Run it with -t N for a given thread count or through {@link ScalingRunner} for a scaling curve.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentionBenchmark {
+    /** The number of distinct scripts used in thrash mode. */
+    private static final int THRASH_SOURCES = 256;
+    /** The number of distinct scripts used in cold and warm modes. */
+    private static final int SOURCES = 16;
+
+    /**
+     * A namespace instantiated per evaluation with the context as argument.
+     */
+    public static class Util {
+        private final JexlContext context;
+
+        public Util(JexlContext context) {
+            this.context = context;
+        }
+
+        public int twice(int x) {
+            return context != null ? 2 * x : 0;
+        }
+    }
+
+    /**
+     * The per-thread caller state.
+     */
+    @State(Scope.Thread)
+    public static class Caller {
+        private JexlContext context;
+        private int index;
+
+        @Setup
+        public void setup() {
+            context = new MapContext();
+            context.set("bean", new InterpreterBenchmark.Bean("first", 1,
+                    new InterpreterBenchmark.Bean("second", 2, null)));
+        }
+
+        /**
+         * Picks the next script source.
+         * @param sources the sources
+         * @return a source
+         */
+        String next(String[] sources) {
+            index = (index + 1) % sources.length;
+            return sources[index];
+        }
+    }
+
+    @Param({"cold", "warm", "thrash"})
+    public String mode;
+
+    private JexlEngine jexl;
+    private String[] sources;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int cacheSize;
+        final int count;
+        if ("cold".equals(mode)) {
+            cacheSize = 0;
+            count = SOURCES;
+        } else if ("warm".equals(mode)) {
+            cacheSize = 2 * THRASH_SOURCES;
+            count = SOURCES;
+        } else {
+            cacheSize = SOURCES;
+            count = THRASH_SOURCES;
+        }
+        jexl = new JexlBuilder()
+                .cache(cacheSize)
+                .namespaces(Collections.<String, Object>singletonMap("util", Util.class))
+                .create();
+        sources = new String[count];
+        for (int s = 0; s < count; ++s) {
+            sources[s] = "var t = " + s + "; var f = (x) -> { x + t };"
+                    + " util:twice(bean.value) + bean.name.length() + f(bean.next.value)";
+        }
+    }
+
+    @Benchmark
+    public Object execute(Caller caller) {
+        return jexl.createScript(caller.next(sources)).execute(caller.context);
+    }
+}
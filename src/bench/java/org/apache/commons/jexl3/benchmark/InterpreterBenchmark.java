@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the interpreter hot paths: arithmetic, property access, method and lambda calls, loops and operators.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InterpreterBenchmark {
+    /**
+     * A bean exposing properties and methods.
+     */
+    public static class Bean {
+        private final String name;
+        private final int value;
+        private final Bean next;
+
+        public Bean(String name, int value, Bean next) {
+            this.name = name;
+            this.value = value;
+            this.next = next;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        public Bean getNext() {
+            return next;
+        }
+
+        public int add(int x, int y) {
+            return x + y;
+        }
+
+        public double add(double x, double y) {
+            return x + y;
+        }
+    }
+
+    private JexlContext context;
+    private JexlScript arithmetic;
+    private JexlScript beanChain;
+    private JexlScript mapChain;
+    private JexlScript methodCall;
+    private JexlScript lambdaCall;
+    private JexlScript forRange;
+    private JexlScript forList;
+    private JexlScript regexMatch;
+    private JexlScript listMatch;
+
+    @Setup
+    public void setup() {
+        JexlEngine jexl = new JexlBuilder().cache(64).strict(true).create();
+        context = new MapContext();
+        context.set("i", 42);
+        context.set("l", 1234567890123L);
+        context.set("d", 3.14159d);
+        context.set("f", 2.5f);
+        context.set("bi", new BigInteger("123456789012345678901234567890"));
+        context.set("bd", new BigDecimal("12345.6789"));
+        context.set("bean", new Bean("first", 1, new Bean("second", 2, new Bean("third", 3, null))));
+        Map<String, Object> c = new HashMap<String, Object>();
+        c.put("c", "value");
+        Map<String, Object> b = new HashMap<String, Object>();
+        b.put("b", c);
+        Map<String, Object> a = new HashMap<String, Object>();
+        a.put("a", b);
+        context.set("map", a);
+        List<Integer> list = new ArrayList<Integer>();
+        for (int n = 0; n < 100; ++n) {
+            list.add(n);
+        }
+        context.set("list", list);
+        context.set("email", "someone@example.com");
+        arithmetic = jexl.createScript("i + l * 2 - d / 3 + f * i + bi % 7 + bd * i");
+        beanChain = jexl.createScript("bean.next.next.value + bean.next.value");
+        mapChain = jexl.createScript("map.a.b.c");
+        methodCall = jexl.createScript("bean.add(i, 3) + bean.add(d, 3)");
+        lambdaCall = jexl.createScript("var f = (x, y) -> { x * y + 1 }; f(1, 2) + f(3, 4) + f(5, 6)");
+        forRange = jexl.createScript("var s = 0; for (var x : 1..100) { s += x } s");
+        forList = jexl.createScript("var s = 0; for (var x : list) { s += x } s");
+        regexMatch = jexl.createScript("email =~ '^[a-z]+@[a-z]+\\\\.com$'");
+        listMatch = jexl.createScript("i =~ list && 1000 !~ list");
+    }
+
+    @Benchmark
+    public Object arithmetic() {
+        return arithmetic.execute(context);
+    }
+
+    @Benchmark
+    public Object beanChain() {
+        return beanChain.execute(context);
+    }
+
+    @Benchmark
+    public Object mapChain() {
+        return mapChain.execute(context);
+    }
+
+    @Benchmark
+    public Object methodCall() {
+        return methodCall.execute(context);
+    }
+
+    @Benchmark
+    public Object lambdaCall() {
+        return lambdaCall.execute(context);
+    }
+
+    @Benchmark
+    public Object forRange() {
+        return forRange.execute(context);
+    }
+
+    @Benchmark
+    public Object forList() {
+        return forList.execute(context);
+    }
+
+    @Benchmark
+    public Object regexMatch() {
+        return regexMatch.execute(context);
+    }
+
+    @Benchmark
+    public Object listMatch() {
+        return listMatch.execute(context);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Reports how often and how long the benchmark threads were blocked or waiting during each iteration.
+ * <p>Blocked counts monitor contention (synchronized); waited counts include parking on
+ * java.util.concurrent locks. Counts are also normalized per operation.</p>
+ * <p>Use it with -prof org.apache.commons.jexl3.benchmark.LockContentionProfiler.</p>
+ */
+public class LockContentionProfiler implements InternalProfiler {
+    /** The name part identifying benchmark threads. */
+    private static final String WORKER = "jmh-worker";
+    /** The thread management bean. */
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    /** The counters of each worker thread when the iteration began: blocked count, blocked ms, waited count, waited ms. */
+    private Map<Long, long[]> before = new HashMap<Long, long[]>();
+
+    public LockContentionProfiler() {
+        if (threads.isThreadContentionMonitoringSupported()) {
+            threads.setThreadContentionMonitoringEnabled(true);
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "Thread blocked/waited counts and times";
+    }
+
+    /**
+     * Samples the counters of the worker threads.
+     * @return the counters keyed by thread id
+     */
+    private Map<Long, long[]> sample() {
+        Map<Long, long[]> counters = new HashMap<Long, long[]>();
+        for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (info != null && info.getThreadName().contains(WORKER)) {
+                counters.put(info.getThreadId(), new long[]{
+                    info.getBlockedCount(), Math.max(0, info.getBlockedTime()),
+                    info.getWaitedCount(), Math.max(0, info.getWaitedTime())
+                });
+            }
+        }
+        return counters;
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        before = sample();
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+                                                       IterationParams iterationParams,
+                                                       IterationResult result) {
+        long[] total = new long[4];
+        for (Map.Entry<Long, long[]> entry : sample().entrySet()) {
+            long[] start = before.get(entry.getKey());
+            long[] end = entry.getValue();
+            for (int c = 0; c < total.length; ++c) {
+                total[c] += start != null ? end[c] - start[c] : end[c];
+            }
+        }
+        double ops = Math.max(1L, result.getMetadata().getAllOps());
+        List<Result> results = new ArrayList<Result>();
+        results.add(new ScalarResult("lock.blocked.count", total[0], "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("lock.blocked.time", total[1], "ms", AggregationPolicy.AVG));
+        results.add(new ScalarResult("lock.blocked.norm", total[0] / ops, "#/op", AggregationPolicy.AVG));
+        results.add(new ScalarResult("lock.waited.count", total[2], "#", AggregationPolicy.AVG));
+        results.add(new ScalarResult("lock.waited.time", total[3], "ms", AggregationPolicy.AVG));
+        results.add(new ScalarResult("lock.waited.norm", total[2] / ops, "#/op", AggregationPolicy.AVG));
+        return results;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlScript;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures cold parsing, the engine having no expression cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParseBenchmark {
+    private static final String EXPRESSION = "a.b.c + x * (y - 3) > 10 ? foo.bar(1, 'two') : list[0]";
+    private static final String SCRIPT =
+            "var total = 0;\n"
+            + "for (var item : items) {\n"
+            + "  if (item.price > 10 && item.qty < 5) {\n"
+            + "    total += item.price * item.qty;\n"
+            + "  } else {\n"
+            + "    total = total + (item.discount ?: 0);\n"
+            + "  }\n"
+            + "}\n"
+            + "var f = (x) -> { x.size() > 0 ? x[0] : null };\n"
+            + "{ 'total' : total, 'first' : f(items), 'ids' : [1, 2, 3] }";
+
+    private JexlEngine jexl;
+
+    @Setup
+    public void setup() {
+        jexl = new JexlBuilder().cache(0).create();
+    }
+
+    @Benchmark
+    public Object parseExpression() {
+        return jexl.createExpression(EXPRESSION);
+    }
+
+    @Benchmark
+    public JexlScript parseScript() {
+        return jexl.createScript(SCRIPT);
+    }
+}
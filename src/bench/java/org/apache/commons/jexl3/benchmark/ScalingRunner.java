@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link ContentionBenchmark} at 1 to N threads and prints a throughput scaling table per mode.
+ * <p>Usage: ScalingRunner [max-threads [mode...]]; max-threads defaults to twice the number of processors,
+ * thread counts double from 1 up to it. For instance:</p>
+ * <pre>
+ * mvn -Pbenchmark test -Dbenchmark.main=org.apache.commons.jexl3.benchmark.ScalingRunner -Dbenchmark.args="64 warm"
+ * </pre>
+ */
+public final class ScalingRunner {
+    /** Not instantiable. */
+    private ScalingRunner() {
+    }
+
+    /**
+     * Computes the thread counts to run.
+     * @param max the maximum thread count
+     * @return the thread counts, doubling from 1 and always ending with max
+     */
+    static List<Integer> threadCounts(int max) {
+        List<Integer> counts = new ArrayList<Integer>();
+        for (int t = 1; t < max; t *= 2) {
+            counts.add(t);
+        }
+        counts.add(max);
+        return counts;
+    }
+
+    /**
+     * Gets a secondary result score.
+     * @param result the run result
+     * @param label  the secondary result label
+     * @return the score or NaN if not reported
+     */
+    private static double secondary(RunResult result, String label) {
+        Result<?> r = result.getSecondaryResults().get(label);
+        return r != null ? r.getScore() : Double.NaN;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int max = args.length > 0 ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        String[] modes = new String[args.length > 1 ? args.length - 1 : 3];
+        if (args.length > 1) {
+            System.arraycopy(args, 1, modes, 0, modes.length);
+        } else {
+            modes[0] = "cold";
+            modes[1] = "warm";
+            modes[2] = "thrash";
+        }
+        // mode -> threads -> result
+        Map<String, Map<Integer, RunResult>> curves = new LinkedHashMap<String, Map<Integer, RunResult>>();
+        for (String mode : modes) {
+            curves.put(mode, new TreeMap<Integer, RunResult>());
+        }
+        for (int threads : threadCounts(max)) {
+            Options options = new OptionsBuilder()
+                    .include(ContentionBenchmark.class.getName())
+                    .param("mode", modes)
+                    .threads(threads)
+                    .addProfiler(LockContentionProfiler.class)
+                    .build();
+            for (RunResult result : new Runner(options).run()) {
+                String mode = result.getParams().getParam("mode");
+                curves.get(mode).put(threads, result);
+            }
+        }
+        System.out.println();
+        System.out.println(String.format("%-8s %8s %14s %8s %10s %12s %12s",
+                "mode", "threads", "ops/ms", "scaling", "blocked/op", "waited/op", "blocked(ms)"));
+        for (Map.Entry<String, Map<Integer, RunResult>> curve : curves.entrySet()) {
+            double base = Double.NaN;
+            for (Map.Entry<Integer, RunResult> point : curve.getValue().entrySet()) {
+                RunResult result = point.getValue();
+                double score = result.getPrimaryResult().getScore();
+                if (Double.isNaN(base)) {
+                    base = score;
+                }
+                System.out.println(String.format("%-8s %8d %14.2f %8.2f %10.4f %12.4f %12.1f",
+                        curve.getKey(), point.getKey(), score, score / base,
+                        secondary(result, "lock.blocked.norm"),
+                        secondary(result, "lock.waited.norm"),
+                        secondary(result, "lock.blocked.time")));
+            }
+        }
+    }
+}
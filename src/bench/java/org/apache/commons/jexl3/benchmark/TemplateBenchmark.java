@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.benchmark;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JxltEngine;
+import org.apache.commons.jexl3.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures template evaluation and expression evaluation through the JXLT engine.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TemplateBenchmark {
+    private JexlContext context;
+    private JxltEngine.Template template;
+    private JxltEngine.Expression expression;
+
+    @Setup
+    public void setup() {
+        JexlEngine jexl = new JexlBuilder().cache(64).create();
+        JxltEngine jxlt = jexl.createJxltEngine();
+        context = new MapContext();
+        List<String> items = new ArrayList<String>();
+        for (int n = 0; n < 20; ++n) {
+            items.add("item" + n);
+        }
+        context.set("title", "Items");
+        context.set("items", items);
+        template = jxlt.createTemplate(
+                "<h1>${title}</h1>\n"
+                + "<ul>\n"
+                + "$$ for (var item : items) {\n"
+                + "<li>${item.toUpperCase()} (${item.length()})</li>\n"
+                + "$$ }\n"
+                + "</ul>\n");
+        expression = jxlt.createExpression("${title}: ${items.size()} items, first is ${items[0]}");
+    }
+
+    @Benchmark
+    public String template() {
+        StringWriter strw = new StringWriter();
+        template.evaluate(context, strw);
+        return strw.toString();
+    }
+
+    @Benchmark
+    public Object expression() {
+        return expression.evaluate(context);
+    }
+}
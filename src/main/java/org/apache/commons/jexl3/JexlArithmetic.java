@@ -17,6 +17,7 @@
 
 package org.apache.commons.jexl3;
 
+import org.apache.commons.jexl3.internal.SoftCache;
 import org.apache.commons.jexl3.introspection.JexlMethod;
 
 import java.lang.reflect.Array;
@@ -73,6 +74,10 @@ public class JexlArithmetic {
     /** Default BigDecimal scale. */
     protected static final int BIGD_SCALE = -1;
 
+    /** The maximum number of regular expression patterns kept in cache. */
+    private static final int PATTERN_CACHE_SIZE = 256;
+
+
     /** Whether this JexlArithmetic instance behaves in strict or lenient mode. */
     private final boolean strict;
 
@@ -82,6 +87,9 @@ public class JexlArithmetic {
     /** The big decimal scale. */
     private final int mathScale;
 
+    /** The least recently used regular expression patterns cache. */
+    private final SoftCache<String, Pattern> patterns = new SoftCache<String, Pattern>(PATTERN_CACHE_SIZE);
+
     /**
      * Creates a JexlArithmetic.
      *
@@ -106,6 +114,8 @@ public class JexlArithmetic {
 
     /**
      * Apply options to this arithmetic which eventually may create another instance.
+     * <p>Unless this method is overridden, engines cache the instances derived from options by strictness,
+     * math context and scale and share them between evaluations and threads.</p>
      * @see #createWithOptions(boolean, java.math.MathContext, int)
      *
      * @param options the {@link JexlEngine.Options} to use
@@ -149,6 +159,10 @@ public class JexlArithmetic {
     /**
      * Creates a JexlArithmetic instance.
      * Called by options(...) method when another instance of the same class of arithmetic is required.
+     * <p>Unless the options methods are overridden, engines cache the created instances by strictness, math
+     * context and scale and reuse them for all evaluations with the same options, concurrently or not;
+     * the created instances must thus be stateless - or at least thread-safe and independent of the
+     * evaluation they are created for - and this method is not called for every evaluation.</p>
      * @see #options(org.apache.commons.jexl3.JexlEngine.Options)
      *
      * @param astrict     whether this arithmetic is lenient or strict
@@ -849,7 +863,7 @@ public class JexlArithmetic {
             return ((java.util.regex.Pattern) container).matcher(value.toString()).matches();
         }
         if (container instanceof CharSequence) {
-            return value.toString().matches(container.toString());
+            return toPattern((CharSequence) container).matcher(value.toString()).matches();
         }
         // try contains on map key
         if (container instanceof Map<?, ?>) {
@@ -1427,6 +1441,26 @@ public class JexlArithmetic {
         }
     }
 
+    /**
+     * Coerce to a regular expression pattern.
+     * <p>Compiled patterns are kept in a bounded least recently used cache owned by this instance so
+     * dynamic expressions are not recompiled on each evaluation.</p>
+     *
+     * @param regex the regular expression
+     * @return the pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression syntax is invalid
+     * @since 3.2
+     */
+    public Pattern toPattern(CharSequence regex) {
+        final String str = regex.toString();
+        Pattern pattern = patterns.get(str);
+        if (pattern == null) {
+            pattern = Pattern.compile(str);
+            patterns.put(str, pattern);
+        }
+        return pattern;
+    }
+
     /**
      * Use or overload and() instead.
      * @param lhs left hand side
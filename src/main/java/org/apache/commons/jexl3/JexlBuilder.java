@@ -70,6 +70,9 @@ public class JexlBuilder {
     /** The sandbox. */
     private JexlSandbox sandbox = null;
 
+    /** The evaluation listener. */
+    private JexlListener listener = null;
+
     /** The Log to which all JexlEngine messages will be logged. */
     private Log logger = null;
 
@@ -109,6 +112,9 @@ public class JexlBuilder {
     /** The features. */
     private JexlFeatures features = null;
 
+    /** Whether constant collection literals are shared immutable instances. */
+    private boolean immutableLiterals = false;
+
     /**
      * Sets the JexlUberspect instance the engine will use.
      *
@@ -174,6 +180,23 @@ public class JexlBuilder {
         return this.sandbox;
     }
 
+    /**
+     * Sets the listener notified of the parsing and evaluation events of the engine.
+     *
+     * @param l the listener, null for none
+     * @return this builder
+     * @since 3.2
+     */
+    public JexlBuilder listener(JexlListener l) {
+        this.listener = l;
+        return this;
+    }
+
+    /** @return the listener */
+    public JexlListener listener() {
+        return this.listener;
+    }
+
     /**
      * Sets the features the engine will use as a base by default.
      * <p>Note that the script flag will be ignored; the engine will be able to parse expressions and scripts.
@@ -401,6 +424,30 @@ public class JexlBuilder {
         return cacheThreshold;
     }
 
+    /**
+     * Sets whether constant collection literals are evaluated once and shared.
+     * <p>When enabled, constant set and map literals evaluate as immutable collections and constant
+     * array literals as a copy of a cached array; scripts must not try to modify those collections.
+     * Literals holding nested arrays are not shared. Like the other evaluation caches, this requires the
+     * engine cache to be enabled.</p>
+     *
+     * @param flag true to share constant literals, false to create a new collection on each evaluation
+     * @return this builder
+     * @since 3.2
+     */
+    public JexlBuilder immutableLiterals(boolean flag) {
+        this.immutableLiterals = flag;
+        return this;
+    }
+
+    /**
+     * @return true if constant collection literals are shared immutable instances, false otherwise
+     * @since 3.2
+     */
+    public boolean immutableLiterals() {
+        return immutableLiterals;
+    }
+
     /**
      * @return a {@link JexlEngine} instance
      */
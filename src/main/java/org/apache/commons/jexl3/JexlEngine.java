@@ -17,6 +17,7 @@
 
 package org.apache.commons.jexl3;
 
+import org.apache.commons.jexl3.internal.CallerLocator;
 import org.apache.commons.jexl3.introspection.JexlUberspect;
 
 import java.io.BufferedReader;
@@ -529,6 +530,76 @@ public abstract class JexlEngine {
      */
     public abstract void setProperty(JexlContext context, Object bean, String expr, Object value);
 
+    /**
+     * Creates a compiled property path, the reusable form of the expressions used to get or set properties.
+     * <p>
+     * When the same expression is used repeatedly, the path should be created once and reused instead
+     * of calling {@link #getProperty(Object, String)} or {@link #setProperty(Object, String, Object)}.
+     * </p>
+     * <p>This default implementation returns a path delegating to these methods.</p>
+     *
+     * @param expr the property expression
+     * @return the property path
+     * @throws JexlException if there is a problem parsing the expression
+     * @since 3.2
+     */
+    public JexlPropertyPath createPropertyPath(final String expr) {
+        return new JexlPropertyPath() {
+            @Override
+            public String getSourceText() {
+                return expr;
+            }
+
+            @Override
+            public Object get(Object bean) {
+                return getProperty(bean, expr);
+            }
+
+            @Override
+            public Object get(JexlContext context, Object bean) {
+                return getProperty(context, bean, expr);
+            }
+
+            @Override
+            public void set(Object bean, Object value) {
+                setProperty(bean, expr, value);
+            }
+
+            @Override
+            public void set(JexlContext context, Object bean, Object value) {
+                setProperty(context, bean, expr, value);
+            }
+        };
+    }
+
+    /**
+     * Estimates the memory retained by a script.
+     * <p>The estimate covers the source text, the syntactic tree and its scopes as well as the executors
+     * cached in the tree by previous executions; objects shared with the engine are not counted.</p>
+     * <p>This default implementation returns -1.</p>
+     *
+     * @param script the script
+     * @return the estimated size in bytes, -1 if it can not be estimated
+     * @since 3.2
+     */
+    public long getFootprint(JexlScript script) {
+        return -1L;
+    }
+
+    /**
+     * Estimates the memory retained by an expression.
+     * <p>The estimate covers the source text, the syntactic tree as well as the executors
+     * cached in the tree by previous evaluations; objects shared with the engine are not counted.</p>
+     * <p>This default implementation returns -1.</p>
+     *
+     * @param expression the expression
+     * @return the estimated size in bytes, -1 if it can not be estimated
+     * @since 3.2
+     */
+    public long getFootprint(JexlExpression expression) {
+        return -1L;
+    }
+
     /**
      * Invokes an object's method by name and arguments.
      *
@@ -575,31 +646,16 @@ public abstract class JexlEngine {
      * Create an information structure for dynamic set/get/invoke/new.
      * <p>This gathers the class, method and line number of the first calling method
      * outside of o.a.c.jexl3.</p>
+     * <p>On Java 11 and later, the stack is walked only up to that method instead of being captured whole.</p>
      *
      * @return a JexlInfo instance
      */
     public JexlInfo createInfo() {
-        JexlInfo info = null;
-        StackTraceElement[] stack = new Throwable().getStackTrace();
-        StackTraceElement se = null;
-        String name = getClass().getName();
-        for (int s = 1; s < stack.length; ++s) {
-            se = stack[s];
-            String className = se.getClassName();
-            if (!className.equals(name)) {
-                // go deeper if called from jexl implementation classes
-                if (className.startsWith("org.apache.commons.jexl3.internal.")
-                    || className.startsWith("org.apache.commons.jexl3.J")) {
-                    name = className;
-                } else {
-                    break;
-                }
-            }
-        }
+        StackTraceElement se = CallerLocator.locate(getClass().getName());
         if (se != null) {
-            info = createInfo(se.getClassName() + "." + se.getMethodName(), se.getLineNumber(), 0);
+            return createInfo(se.getClassName() + "." + se.getMethodName(), se.getLineNumber(), 0);
         }
-        return info;
+        return null;
     }
 
     /**
@@ -39,8 +39,8 @@ public class JexlException extends RuntimeException {
     /** The point of origin for this exception. */
     private final transient JexlNode mark;
 
-    /** The debug info. */
-    private final transient JexlInfo info;
+    /** The debug info, derived from the mark when first needed. */
+    private transient JexlInfo info;
 
     /** Maximum number of characters around exception location. */
     private static final int MAX_EXCHARLOC = 42;
@@ -64,13 +64,8 @@ public class JexlException extends RuntimeException {
      */
     public JexlException(JexlNode node, String msg, Throwable cause) {
         super(msg != null ? msg : "", unwrap(cause));
-        if (node != null) {
-            mark = node;
-            info = node.jexlInfo();
-        } else {
-            mark = null;
-            info = null;
-        }
+        mark = node;
+        info = null;
     }
 
     /**
@@ -92,7 +87,21 @@ public class JexlException extends RuntimeException {
      * @return the information
      */
     public JexlInfo getInfo() {
-        return getInfo(mark, info);
+        return getInfo(mark, info());
+    }
+
+    /**
+     * Gets the information of this exception, deriving it from the mark if needed.
+     * <p>Exceptions are created on expected paths (silent mode, caught errors); the information is only
+     * computed when actually reported.</p>
+     *
+     * @return the information or null
+     */
+    private JexlInfo info() {
+        if (info == null && mark != null) {
+            info = mark.jexlInfo();
+        }
+        return info;
     }
 
     /**
@@ -221,7 +230,7 @@ public class JexlException extends RuntimeException {
         if (length < MAX_EXCHARLOC) {
             return prefix + " error in '" + expr + "'";
         } else {
-            int begin = info.getColumn();
+            int begin = info().getColumn();
             int end = begin + (MAX_EXCHARLOC / 2);
             begin -= (MAX_EXCHARLOC / 2);
             if (begin < 0) {
@@ -655,6 +664,16 @@ public class JexlException extends RuntimeException {
             this.result = value;
         }
 
+        /**
+         * Control flow exceptions do not capture stack traces.
+         *
+         * @return this exception
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
         /**
          * @return the returned value
          */
@@ -693,6 +712,16 @@ public class JexlException extends RuntimeException {
         public Break(JexlNode node) {
             super(node, "break loop", null);
         }
+
+        /**
+         * Control flow exceptions do not capture stack traces.
+         *
+         * @return this exception
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 
     /**
@@ -709,6 +738,16 @@ public class JexlException extends RuntimeException {
         public Continue(JexlNode node) {
             super(node, "continue loop", null);
         }
+
+        /**
+         * Control flow exceptions do not capture stack traces.
+         *
+         * @return this exception
+         */
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
     }
 
     /**
@@ -725,8 +764,9 @@ public class JexlException extends RuntimeException {
     @Override
     public String getMessage() {
         StringBuilder msg = new StringBuilder();
-        if (info != null) {
-            msg.append(info.toString());
+        JexlInfo jinfo = info();
+        if (jinfo != null) {
+            msg.append(jinfo.toString());
         } else {
             msg.append("?:");
         }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+/**
+ * Listens to the parsing and evaluation events of an engine.
+ * <p>
+ * A listener is registered through {@link JexlBuilder#listener(JexlListener)}; an engine without listener
+ * does not create or dispatch any event.</p>
+ * <p>
+ * To keep allocations low, the event instance passed to the listener is owned by the engine and reused
+ * for all events occurring in a given thread; it is only valid during the call and must not be retained.
+ * A listener may evaluate scripts with the engine it listens to, the events it then receives being
+ * distinct instances.
+ * The listener is called synchronously by the evaluating thread and must thus be thread-safe and fast;
+ * the exceptions it may throw are logged and do not alter the evaluation.</p>
+ * @since 3.2
+ */
+public interface JexlListener {
+
+    /**
+     * The event types.
+     */
+    enum Type {
+        /** A source is about to be parsed (or found in the cache). */
+        PARSE_START,
+        /** A source has been parsed (or found in the cache); the error is set if the parsing failed. */
+        PARSE_END,
+        /** A script, an expression or a closure is about to be executed, including closures called by scripts. */
+        EXECUTE_START,
+        /** A script has been executed; the result or error is set. */
+        EXECUTE_END,
+        /** A node executor had to be resolved, its cached executor being absent or unusable. */
+        CACHE_MISS,
+        /** A method or function could not be resolved. */
+        METHOD_FAILURE,
+        /** An evaluation was cancelled. */
+        CANCEL
+    }
+
+    /**
+     * An event.
+     */
+    interface Event {
+        /**
+         * @return the event type
+         */
+        Type getType();
+
+        /**
+         * @return the script being executed or null if the event is not related to a script instance
+         */
+        JexlScript getScript();
+
+        /**
+         * @return the parsed or executed source or null if unknown
+         */
+        String getSource();
+
+        /**
+         * The location of the event.
+         * <p>This is lazily created and may require an allocation.</p>
+         * @return the info or null if unknown
+         */
+        JexlInfo getInfo();
+
+        /**
+         * @return the method, function or property name for node events, null otherwise
+         */
+        String getName();
+
+        /**
+         * @return whether the parsed script was found in the cache, only meaningful on PARSE_END
+         */
+        boolean isCached();
+
+        /**
+         * @return the execution result, only meaningful on EXECUTE_END
+         */
+        Object getResult();
+
+        /**
+         * @return the error that ended a parsing or an execution, null otherwise
+         */
+        Throwable getError();
+
+        /**
+         * @return the duration in nanoseconds of a parsing or an execution, 0 for other events
+         */
+        long getDuration();
+    }
+
+    /**
+     * Called when an event occurs.
+     * @param event the event, only valid during this call
+     */
+    void onEvent(Event event);
+}
@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.jexl3;
+
+/**
+ * A boolean view of a JEXL expression.
+ * <p>
+ * The expression result is evaluated as a primitive boolean, the arithmetic coercion being
+ * only used when the expression yields an object.
+ * </p>
+ * <p>Do <em>not</em> create classes that implement this interface; delegate or compose instead.</p>
+ *
+ * @see JexlPrimitiveExpression#predicate()
+ * @since 3.2
+ */
+public interface JexlPredicate {
+    /**
+     * Evaluates the underlying expression as a boolean.
+     *
+     * @param context A JexlContext containing variables.
+     * @return the boolean result of this evaluation
+     * @throws JexlException on any error
+     */
+    boolean test(JexlContext context);
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.jexl3;
+
+/**
+ * Represents a JEXL expression that can be evaluated as a primitive.
+ * <p>
+ * The expressions and scripts created by {@link JexlEngine} implement this interface.
+ * </p>
+ * <p>Do <em>not</em> create classes that implement this interface; delegate or compose instead.</p>
+ *
+ * @since 3.2
+ */
+public interface JexlPrimitiveExpression extends JexlExpression {
+    /**
+     * Evaluates the expression as a boolean.
+     * <p>Logical and comparison operators are evaluated without boxing; the arithmetic coercion
+     * is only used when the expression yields an object.</p>
+     *
+     * @param context A JexlContext containing variables.
+     * @return The boolean result of this evaluation
+     * @throws JexlException on any error
+     */
+    boolean evaluateBoolean(JexlContext context);
+
+    /**
+     * Evaluates the expression as a long.
+     * <p>Arithmetic operators on numbers are evaluated without boxing; the arithmetic coercion
+     * is only used when the expression yields an object.</p>
+     *
+     * @param context A JexlContext containing variables.
+     * @return The long result of this evaluation
+     * @throws JexlException on any error
+     */
+    long evaluateLong(JexlContext context);
+
+    /**
+     * Evaluates the expression as a double.
+     * <p>Arithmetic operators on numbers are evaluated without boxing; the arithmetic coercion
+     * is only used when the expression yields an object.</p>
+     *
+     * @param context A JexlContext containing variables.
+     * @return The double result of this evaluation
+     * @throws JexlException on any error
+     */
+    double evaluateDouble(JexlContext context);
+
+    /**
+     * Creates a predicate from this expression.
+     *
+     * @return the predicate evaluating this expression as a boolean
+     */
+    JexlPredicate predicate();
+}
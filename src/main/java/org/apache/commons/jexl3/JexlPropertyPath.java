@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+/**
+ * Represents a compiled property path, the reusable form of the expressions used by
+ * {@link JexlEngine#getProperty(Object, String)} and {@link JexlEngine#setProperty(Object, String, Object)}.
+ * <p>
+ * A path made of property names and constant indices, like <code>foo.bar[0]['quux']</code>, is evaluated
+ * without creating an interpreter; the property executors resolved for each access are kept and reused
+ * as long as the receiver classes do not change. Other paths are evaluated through the interpreter.
+ * </p>
+ * <p>
+ * If the JEXL engine is silent, errors will be logged through its logger as warning.
+ * </p>
+ * <p>Do <em>not</em> create classes that implement this interface; delegate or compose instead.</p>
+ *
+ * @since 3.2
+ */
+public interface JexlPropertyPath {
+    /**
+     * Returns the source text of this path.
+     *
+     * @return the source text
+     */
+    String getSourceText();
+
+    /**
+     * Accesses the property of a bean designated by this path.
+     *
+     * @param bean the bean to get properties from
+     * @return the value of the property
+     * @throws JexlException if there is an error during evaluation
+     */
+    Object get(Object bean);
+
+    /**
+     * Accesses the property of a bean designated by this path.
+     *
+     * @param context the evaluation context
+     * @param bean    the bean to get properties from
+     * @return the value of the property
+     * @throws JexlException if there is an error during evaluation
+     */
+    Object get(JexlContext context, Object bean);
+
+    /**
+     * Assigns the property of a bean designated by this path.
+     *
+     * @param bean  the bean to set properties in
+     * @param value the value of the property
+     * @throws JexlException if there is an error during evaluation
+     */
+    void set(Object bean, Object value);
+
+    /**
+     * Assigns the property of a bean designated by this path.
+     *
+     * @param context the evaluation context
+     * @param bean    the bean to set properties in
+     * @param value   the value of the property
+     * @throws JexlException if there is an error during evaluation
+     */
+    void set(JexlContext context, Object bean, Object value);
+}
@@ -17,9 +17,15 @@
 
 package org.apache.commons.jexl3;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -403,6 +409,56 @@ public abstract class JxltEngine {
         return createTemplate(null, source);
     }
 
+    /**
+     * Evaluates a template, writing bytes encoded with a charset to an output stream.
+     * <p>The output stream is flushed even if the evaluation fails; it is not closed.</p>
+     * <p>This default implementation writes through an {@link OutputStreamWriter}; template engines may
+     * encode the constant parts of their templates once and write them as is.</p>
+     *
+     * @param template the template
+     * @param context the context to use during evaluation
+     * @param out the output stream
+     * @param charset the charset used to encode characters
+     * @param args the arguments
+     * @since 3.2
+     */
+    public void evaluate(Template template, JexlContext context, OutputStream out, Charset charset,
+                         Object... args) {
+        Writer writer = new OutputStreamWriter(out, charset);
+        boolean ok = false;
+        try {
+            template.evaluate(context, writer, args);
+            ok = true;
+        } finally {
+            try {
+                writer.flush();
+            } catch (IOException xio) {
+                // do not hide the evaluation error
+                if (ok) {
+                    throw new Exception(null, "flush error", xio);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates a template, writing bytes encoded with a charset to a channel.
+     * <p>The channel is expected to be blocking; it is not closed.</p>
+     * <p>This default implementation writes to an output stream adapting the channel; template engines
+     * may use gathering writes.</p>
+     *
+     * @param template the template
+     * @param context the context to use during evaluation
+     * @param channel the channel
+     * @param charset the charset used to encode characters
+     * @param args the arguments
+     * @since 3.2
+     */
+    public void evaluate(Template template, JexlContext context, WritableByteChannel channel, Charset charset,
+                         Object... args) {
+        evaluate(template, context, Channels.newOutputStream(channel), charset, args);
+    }
+
     /**
      * Gets the {@link JexlEngine} underlying this template engine.
      *
@@ -414,4 +470,24 @@ public abstract class JxltEngine {
      * Clears the cache.
      */
     public abstract void clearCache();
+
+    /**
+     * Gets the number of templates created from a source string that were found in the template cache.
+     *
+     * @return the number of template cache hits
+     * @since 3.2
+     */
+    public long getTemplateCacheHits() {
+        return 0L;
+    }
+
+    /**
+     * Gets the number of templates created from a source string that had to be compiled.
+     *
+     * @return the number of template cache misses
+     * @since 3.2
+     */
+    public long getTemplateCacheMisses() {
+        return 0L;
+    }
 }
@@ -102,11 +102,28 @@ public class Closure extends Script {
         }
     }
 
+    /**
+     * Whether a function node is a call in tail position of this closure body through a hoisted variable.
+     * @param node the function node
+     * @return true if calling this closure from that node can be performed as a loop
+     */
+    boolean isTailCall(JexlNode node) {
+        return script instanceof ASTJexlLambda && ((ASTJexlLambda) script).isTailCall(node);
+    }
+
     @Override
     public Object evaluate(JexlContext context) {
         return execute(context, (Object[])null);
     }
 
+    @Override
+    protected long evaluate(JexlContext context, int type) {
+        Scope.Frame callFrame = frame != null ? frame.assign((Object[]) null) : null;
+        Interpreter interpreter = jexl.createInterpreter(context, callFrame);
+        interpret(interpreter, script.jjtGetChild(script.jjtGetNumChildren() - 1), type);
+        return interpreter.getPrimitive();
+    }
+
     @Override
     public Object execute(JexlContext context) {
         return execute(context, (Object[])null);
@@ -114,13 +131,18 @@ public class Closure extends Script {
 
     @Override
     public Object execute(JexlContext context, Object... args) {
+        // called from Java code by a running script, no need for a new interpreter
+        Interpreter caller = Interpreter.callerOf(this, context);
+        if (caller != null) {
+            return caller.call(null, this, args);
+        }
         Scope.Frame callFrame = null;
         if (frame != null) {
             callFrame = frame.assign(args);
         }
         Interpreter interpreter = jexl.createInterpreter(context, callFrame);
         JexlNode block = script.jjtGetChild(script.jjtGetNumChildren() - 1);
-        return interpreter.interpret(block);
+        return interpret(interpreter, block);
     }
 
     @Override
@@ -133,7 +155,7 @@ public class Closure extends Script {
             @Override
             public Object interpret() {
                 JexlNode block = script.jjtGetChild(script.jjtGetNumChildren() - 1);
-                return interpreter.interpret(block);
+                return Closure.this.interpret(interpreter, block);
             }
         };
     }
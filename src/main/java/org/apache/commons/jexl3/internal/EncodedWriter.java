@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * A writer that encodes characters to an output stream or a channel and lets pre-encoded bytes through.
+ * <p>Used by templates rendered to bytes; their constant parts are encoded once per charset.</p>
+ * <p>Characters are encoded by a single encoder for the whole rendering. The encoded characters and the
+ * pre-encoded bytes are queued as buffers that are written together, through a gathering write when the
+ * channel allows it; pre-encoded bytes are not copied.</p>
+ * @since 3.2
+ */
+final class EncodedWriter extends Writer {
+    /** The size of the buffer holding encoded characters. */
+    private static final int BUFFER_SIZE = 8192;
+    /** The maximum number of buffers queued before they are written. */
+    private static final int QUEUE_SIZE = 16;
+    /** A string used to check whether a charset encodes strings independently. */
+    private static final String PROBE = "a\u00e9\u20ac\u4e00\ud83d\ude00";
+    /** The output stream, null if writing to a channel. */
+    private final OutputStream out;
+    /** The channel, null if writing to a stream. */
+    private final WritableByteChannel channel;
+    /** The charset. */
+    private final Charset charset;
+    /** The character encoder. */
+    private final CharsetEncoder encoder;
+    /** The encoded characters. */
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    /** The position of the first encoded character that is not queued. */
+    private int mark = 0;
+    /** The buffers to write. */
+    private final ByteBuffer[] queue = new ByteBuffer[QUEUE_SIZE];
+    /** The number of queued buffers. */
+    private int queued = 0;
+    /** A high surrogate waiting for its low surrogate, 0 if none. */
+    private char surrogate = 0;
+
+    /**
+     * Creates an encoded writer to a stream.
+     * @param stream the output stream
+     * @param cs the charset
+     */
+    EncodedWriter(OutputStream stream, Charset cs) {
+        this(stream, null, cs);
+    }
+
+    /**
+     * Creates an encoded writer to a channel.
+     * @param ch the channel
+     * @param cs the charset
+     */
+    EncodedWriter(WritableByteChannel ch, Charset cs) {
+        this(null, ch, cs);
+    }
+
+    /**
+     * Creates an encoded writer.
+     * @param stream the output stream
+     * @param ch the channel
+     * @param cs the charset
+     */
+    private EncodedWriter(OutputStream stream, WritableByteChannel ch, Charset cs) {
+        out = stream;
+        channel = ch;
+        charset = cs;
+        encoder = cs.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * Checks whether strings encoded separately with a charset can be concatenated.
+     * <p>This is not the case of charsets writing a byte order mark, like UTF-16, or keeping a shift state,
+     * like ISO-2022-JP; their output can not mix pre-encoded bytes with encoded characters.</p>
+     * @param charset the charset
+     * @return true if pre-encoded strings can be written as is, false otherwise
+     */
+    static boolean isConcatenable(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        final byte[] one = PROBE.getBytes(charset);
+        final byte[] two = (PROBE + PROBE).getBytes(charset);
+        return two.length == 2 * one.length
+               && Arrays.equals(one, Arrays.copyOfRange(two, 0, one.length))
+               && Arrays.equals(one, Arrays.copyOfRange(two, one.length, two.length));
+    }
+
+    /**
+     * @return the charset
+     */
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Writes bytes already encoded with this writer charset.
+     * <p>The charset must be {@link #isConcatenable(Charset) concatenable}.</p>
+     * @param encoded the encoded bytes
+     * @throws IOException if writing fails
+     */
+    void writeEncoded(byte[] encoded) throws IOException {
+        if (surrogate != 0) {
+            // a lone high surrogate is malformed input
+            final CharBuffer in = CharBuffer.wrap(new char[]{surrogate});
+            surrogate = 0;
+            encode(in, true);
+            encodeFlush();
+            encoder.reset();
+        }
+        queueChars();
+        queue(ByteBuffer.wrap(encoded));
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        write(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        write(CharBuffer.wrap(str, off, off + len));
+    }
+
+    /**
+     * Encodes characters.
+     * @param chars the characters
+     * @throws IOException if writing fails
+     */
+    private void write(CharBuffer chars) throws IOException {
+        CharBuffer in = chars;
+        if (surrogate != 0) {
+            in = CharBuffer.allocate(chars.remaining() + 1);
+            in.put(surrogate).put(chars).flip();
+            surrogate = 0;
+        }
+        encode(in, false);
+        // only an incomplete surrogate pair can remain
+        if (in.hasRemaining()) {
+            surrogate = in.get();
+        }
+    }
+
+    /**
+     * Encodes characters in the encoded characters buffer, writing the queue when it is full.
+     * @param in the characters
+     * @param end whether there is no more input
+     * @throws IOException if writing fails
+     */
+    private void encode(CharBuffer in, boolean end) throws IOException {
+        while (true) {
+            final CoderResult cr = encoder.encode(in, bytes, end);
+            if (cr.isUnderflow()) {
+                return;
+            }
+            if (cr.isOverflow()) {
+                drain();
+            } else {
+                cr.throwException();
+            }
+        }
+    }
+
+    /**
+     * Flushes the encoder internal state in the encoded characters buffer.
+     * @throws IOException if writing fails
+     */
+    private void encodeFlush() throws IOException {
+        while (encoder.flush(bytes).isOverflow()) {
+            drain();
+        }
+    }
+
+    /**
+     * Queues the encoded characters that are not queued yet.
+     * @throws IOException if writing fails
+     */
+    private void queueChars() throws IOException {
+        final int position = bytes.position();
+        if (position > mark) {
+            final ByteBuffer chunk = bytes.duplicate();
+            chunk.limit(position);
+            chunk.position(mark);
+            mark = position;
+            queue(chunk);
+        }
+    }
+
+    /**
+     * Queues a buffer, writing the queue if it is full.
+     * @param buffer the buffer
+     * @throws IOException if writing fails
+     */
+    private void queue(ByteBuffer buffer) throws IOException {
+        if (queued == QUEUE_SIZE) {
+            writeQueue();
+        }
+        queue[queued++] = buffer;
+    }
+
+    /**
+     * Writes the queued buffers.
+     * @throws IOException if writing fails
+     */
+    private void writeQueue() throws IOException {
+        if (queued == 0) {
+            return;
+        }
+        if (channel instanceof GatheringByteChannel) {
+            final GatheringByteChannel gathering = (GatheringByteChannel) channel;
+            int first = 0;
+            while (first < queued) {
+                gathering.write(queue, first, queued - first);
+                while (first < queued && !queue[first].hasRemaining()) {
+                    first += 1;
+                }
+            }
+        } else {
+            for (int b = 0; b < queued; ++b) {
+                final ByteBuffer buffer = queue[b];
+                if (channel != null) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                } else {
+                    out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                }
+            }
+        }
+        Arrays.fill(queue, 0, queued, null);
+        queued = 0;
+    }
+
+    /**
+     * Writes all the queued buffers and the encoded characters, making room in the encoded characters buffer.
+     * @throws IOException if writing fails
+     */
+    private void drain() throws IOException {
+        queueChars();
+        writeQueue();
+        bytes.clear();
+        mark = 0;
+    }
+
+    /**
+     * Ends the encoding, writing everything.
+     * <p>This writer can not be used after this call.</p>
+     * @throws IOException if writing fails
+     */
+    void finish() throws IOException {
+        final CharBuffer in = surrogate != 0 ? CharBuffer.wrap(new char[]{surrogate}) : CharBuffer.allocate(0);
+        surrogate = 0;
+        encode(in, true);
+        encodeFlush();
+        flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        if (out != null) {
+            out.close();
+        } else {
+            channel.close();
+        }
+    }
+}
@@ -21,8 +21,10 @@ import org.apache.commons.jexl3.JexlBuilder;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlExpression;
 import org.apache.commons.jexl3.JexlFeatures;
 import org.apache.commons.jexl3.JexlInfo;
+import org.apache.commons.jexl3.JexlListener;
 import org.apache.commons.jexl3.JexlScript;
 import org.apache.commons.jexl3.internal.introspection.SandboxUberspect;
 import org.apache.commons.jexl3.internal.introspection.Uberspect;
@@ -39,7 +41,9 @@ import org.apache.commons.jexl3.parser.JexlNode;
 import org.apache.commons.jexl3.parser.Parser;
 
 import java.io.StringReader;
+import java.math.MathContext;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -47,6 +51,8 @@ import java.util.Map;
 import java.util.Set;
 
 import java.nio.charset.Charset;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.logging.Log;
@@ -85,6 +91,23 @@ public class Engine extends JexlEngine {
      * The {@link JexlArithmetic} instance.
      */
     protected final JexlArithmetic arithmetic;
+    /**
+     * The operator overloads of the arithmetic.
+     */
+    private final JexlArithmetic.Uberspect arithmeticOperators;
+    /**
+     * The arithmetic instances derived from options keyed by strictness, math context and scale;
+     * null if the arithmetic class overrides the options methods.
+     */
+    private final ConcurrentMap<List<Object>, JexlArithmetic> derivedArithmetics;
+    /**
+     * The operator overloads of the derived arithmetic instances.
+     */
+    private final ConcurrentMap<JexlArithmetic, JexlArithmetic.Uberspect> derivedOperators;
+    /**
+     * The maximum number of derived arithmetic instances.
+     */
+    private static final int DERIVED_ARITHMETIC_SIZE = 64;
     /**
      * The map of 'prefix:function' to object implementing the namespaces.
      */
@@ -108,6 +131,10 @@ public class Engine extends JexlEngine {
      * Whether error messages will carry debugging information.
      */
     protected final boolean debug;
+    /**
+     * Whether constant collection literals are evaluated once and shared as immutable instances.
+     */
+    protected final boolean immutableLiterals;
     /**
      * The atomic parsing flag; true whilst parsing.
      */
@@ -141,6 +168,14 @@ public class Engine extends JexlEngine {
      * The default jxlt engine.
      */
     protected volatile TemplateEngine jxlt = null;
+    /**
+     * The evaluation listener, null if none.
+     */
+    protected final JexlListener listener;
+    /**
+     * The per-thread event passed to the listener, null if no listener.
+     */
+    private final ThreadLocal<ListenerEvent> listenerEvents;
 
     /**
      * Creates an engine with default arguments.
@@ -159,6 +194,7 @@ public class Engine extends JexlEngine {
         this.silent = conf.silent() == null ? false : conf.silent();
         this.cancellable = conf.cancellable() == null ? !silent && strict : conf.cancellable();
         this.debug = conf.debug() == null ? true : conf.debug();
+        this.immutableLiterals = conf.immutableLiterals();
         // core properties:
         JexlUberspect uber = conf.uberspect() == null ? getUberspect(conf.logger(), conf.strategy()) : conf.uberspect();
         ClassLoader loader = conf.loader();
@@ -173,6 +209,14 @@ public class Engine extends JexlEngine {
         }
         this.logger = conf.logger() == null ? LogFactory.getLog(JexlEngine.class) : conf.logger();
         this.arithmetic = conf.arithmetic() == null ? new JexlArithmetic(this.strict) : conf.arithmetic();
+        this.arithmeticOperators = uberspect != null ? uberspect.getArithmetic(arithmetic) : null;
+        if (isDefaultOptions(arithmetic.getClass())) {
+            this.derivedArithmetics = new ConcurrentHashMap<List<Object>, JexlArithmetic>();
+            this.derivedOperators = new ConcurrentHashMap<JexlArithmetic, JexlArithmetic.Uberspect>();
+        } else {
+            this.derivedArithmetics = null;
+            this.derivedOperators = null;
+        }
         this.functions = conf.namespaces() == null ? Collections.<String, Object>emptyMap() : conf.namespaces();
         // parsing & features:
         JexlFeatures features = conf.features() == null? DEFAULT_FEATURES : conf.features();
@@ -182,6 +226,14 @@ public class Engine extends JexlEngine {
         // caching:
         this.cache = conf.cache() <= 0 ? null : new SoftCache<Source, ASTJexlScript>(conf.cache());
         this.cacheThreshold = conf.cacheThreshold();
+        // listening:
+        this.listener = conf.listener();
+        this.listenerEvents = listener == null ? null : new ThreadLocal<ListenerEvent>() {
+            @Override
+            protected ListenerEvent initialValue() {
+                return new ListenerEvent();
+            }
+        };
         if (uberspect == null) {
             throw new IllegalArgumentException("uberspect can not be null");
         }
@@ -215,6 +267,81 @@ public class Engine extends JexlEngine {
         return arithmetic;
     }
 
+    /**
+     * Checks whether an arithmetic class derives instances from options as JexlArithmetic does.
+     * @param aclass the arithmetic class
+     * @return true if neither options method is overridden
+     */
+    private static boolean isDefaultOptions(Class<? extends JexlArithmetic> aclass) {
+        try {
+            return aclass.getMethod("options", JexlEngine.Options.class).getDeclaringClass() == JexlArithmetic.class
+                   && aclass.getMethod("options", JexlContext.class).getDeclaringClass() == JexlArithmetic.class;
+        } catch (NoSuchMethodException xmethod) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the arithmetic to use when evaluating with a given context.
+     * <p>The instances derived from options are cached by strictness, math context and scale unless
+     * the arithmetic class overrides the options methods; as documented by
+     * {@link JexlArithmetic#createWithOptions(boolean, MathContext, int)}, they must be stateless.</p>
+     * @param context the context that may extend {@link JexlEngine.Options}
+     * @return the engine arithmetic or an instance derived from the options
+     */
+    protected JexlArithmetic getArithmetic(JexlContext context) {
+        if (!(context instanceof JexlEngine.Options)) {
+            return arithmetic;
+        }
+        if (derivedArithmetics == null) {
+            return arithmetic.options(context);
+        }
+        JexlEngine.Options options = (JexlEngine.Options) context;
+        Boolean ostrict = options.isStrictArithmetic();
+        if (ostrict == null) {
+            ostrict = arithmetic.isStrict();
+        }
+        MathContext bigdContext = options.getArithmeticMathContext();
+        if (bigdContext == null) {
+            bigdContext = arithmetic.getMathContext();
+        }
+        int bigdScale = options.getArithmeticMathScale();
+        if (bigdScale == Integer.MIN_VALUE) {
+            bigdScale = arithmetic.getMathScale();
+        }
+        if (ostrict == arithmetic.isStrict()
+            && bigdScale == arithmetic.getMathScale()
+            && bigdContext.equals(arithmetic.getMathContext())) {
+            return arithmetic;
+        }
+        List<Object> key = Arrays.<Object>asList(ostrict, bigdContext, bigdScale);
+        JexlArithmetic jexla = derivedArithmetics.get(key);
+        if (jexla == null) {
+            jexla = arithmetic.options(context);
+            if (derivedArithmetics.size() >= DERIVED_ARITHMETIC_SIZE) {
+                derivedArithmetics.clear();
+                derivedOperators.clear();
+            }
+            derivedOperators.put(jexla, uberspect.getArithmetic(jexla));
+            derivedArithmetics.put(key, jexla);
+        }
+        return jexla;
+    }
+
+    /**
+     * Gets the operator overloads of an arithmetic instance.
+     * <p>The overloads of the engine arithmetic and of the cached derived instances are computed once.</p>
+     * @param jexla the arithmetic instance
+     * @return the arithmetic uberspect
+     */
+    protected JexlArithmetic.Uberspect getArithmeticOperators(JexlArithmetic jexla) {
+        if (jexla == arithmetic) {
+            return arithmeticOperators;
+        }
+        JexlArithmetic.Uberspect operators = derivedOperators != null ? derivedOperators.get(jexla) : null;
+        return operators != null ? operators : uberspect.getArithmetic(jexla);
+    }
+
     @Override
     public boolean isDebug() {
         return this.debug;
@@ -375,11 +502,25 @@ public class Engine extends JexlEngine {
         }
     }
 
+    @Override
+    public PropertyPath createPropertyPath(String expr) {
+        return new PropertyPath(this, expr);
+    }
+
+    @Override
+    public long getFootprint(JexlScript script) {
+        return script instanceof Script ? ((Script) script).getFootprint() : -1L;
+    }
+
+    @Override
+    public long getFootprint(JexlExpression expression) {
+        return expression instanceof Script ? ((Script) expression).getFootprint() : -1L;
+    }
+
     @Override
     public Object invokeMethod(Object obj, String meth, Object... args) {
         JexlException xjexl = null;
         Object result = null;
-        final JexlInfo info = debug ? createInfo() : null;
         try {
             JexlMethod method = uberspect.getMethod(obj, meth, args);
             if (method == null && arithmetic.narrowArguments(args)) {
@@ -388,12 +529,17 @@ public class Engine extends JexlEngine {
             if (method != null) {
                 result = method.invoke(obj, args);
             } else {
+                // the caller is only located on failure
+                final JexlInfo info = debug ? createInfo() : null;
+                if (listener != null) {
+                    listenNode(JexlListener.Type.METHOD_FAILURE, null, info, meth);
+                }
                 xjexl = new JexlException.Method(info, meth, null);
             }
         } catch (JexlException xany) {
             xjexl = xany;
         } catch (Exception xany) {
-            xjexl = new JexlException.Method(info, meth, xany);
+            xjexl = new JexlException.Method(debug ? createInfo() : null, meth, xany);
         }
         if (xjexl != null) {
             if (silent) {
@@ -426,7 +572,6 @@ public class Engine extends JexlEngine {
     protected Object doCreateInstance(Object clazz, Object... args) {
         JexlException xjexl = null;
         Object result = null;
-        final JexlInfo info = debug ? createInfo() : null;
         try {
             JexlMethod ctor = uberspect.getConstructor(clazz, args);
             if (ctor == null && arithmetic.narrowArguments(args)) {
@@ -435,12 +580,17 @@ public class Engine extends JexlEngine {
             if (ctor != null) {
                 result = ctor.invoke(clazz, args);
             } else {
+                // the caller is only located on failure
+                final JexlInfo info = debug ? createInfo() : null;
+                if (listener != null) {
+                    listenNode(JexlListener.Type.METHOD_FAILURE, null, info, clazz.toString());
+                }
                 xjexl = new JexlException.Method(info, clazz.toString(), null);
             }
         } catch (JexlException xany) {
             xjexl = xany;
         } catch (Exception xany) {
-            xjexl = new JexlException.Method(info, clazz.toString(), xany);
+            xjexl = new JexlException.Method(debug ? createInfo() : null, clazz.toString(), xany);
         }
         if (xjexl != null) {
             if (silent) {
@@ -644,38 +794,129 @@ public class Engine extends JexlEngine {
      * @throws JexlException if any error occurred during parsing
      */
     protected ASTJexlScript parse(JexlInfo info, JexlFeatures parsingf, String src, Scope scope) {
-        final boolean cached = src.length() < cacheThreshold && cache != null;
-        final JexlFeatures features = parsingf != null? parsingf : DEFAULT_FEATURES;
-        final Source source = cached? new Source(features, src) : null;
-        ASTJexlScript script = null;
-        if (source != null) {
-            script = cache.get(source);
-            if (script != null) {
-                Scope f = script.getScope();
-                if ((f == null && scope == null) || (f != null && f.equals(scope))) {
-                    return script;
+        final Object event = FlightRecorder.beginParse();
+        final long start = listener != null ? listenStart(JexlListener.Type.PARSE_START, null, src, info) : 0L;
+        try {
+            final boolean cached = src.length() < cacheThreshold && cache != null;
+            final JexlFeatures features = parsingf != null? parsingf : DEFAULT_FEATURES;
+            final Source source = cached? new Source(features, src) : null;
+            ASTJexlScript script = null;
+            if (source != null) {
+                script = cache.get(source);
+                if (script != null) {
+                    Scope f = script.getScope();
+                    if ((f == null && scope == null) || (f != null && f.equals(scope))) {
+                        FlightRecorder.endParse(event, src.length(), true);
+                        if (listener != null) {
+                            listenEnd(JexlListener.Type.PARSE_END, start, null, src, info, true, script, null);
+                        }
+                        return script;
+                    }
                 }
             }
-        }
-        final JexlInfo ninfo = info == null && debug ? createInfo() : info;
-        // if parser not in use...
-        if (parsing.compareAndSet(false, true)) {
-            try {
-                // lets parse
-                script = parser.parse(ninfo, features, src, scope);
-            } finally {
-                // no longer in use
-                parsing.set(false);
+            final JexlInfo ninfo = info == null && debug ? createInfo() : info;
+            // if parser not in use...
+            if (parsing.compareAndSet(false, true)) {
+                try {
+                    // lets parse
+                    script = parser.parse(ninfo, features, src, scope);
+                } finally {
+                    // no longer in use
+                    parsing.set(false);
+                }
+            } else {
+                // ...otherwise parser was in use, create a new temporary one
+                Parser lparser = new Parser(new StringReader(";"));
+                script = lparser.parse(ninfo, features, src, scope);
             }
-        } else {
-            // ...otherwise parser was in use, create a new temporary one
-            Parser lparser = new Parser(new StringReader(";"));
-            script = lparser.parse(ninfo, features, src, scope);
+            if (source != null) {
+                cache.put(source, script);
+            }
+            FlightRecorder.endParse(event, src.length(), false);
+            if (listener != null) {
+                listenEnd(JexlListener.Type.PARSE_END, start, null, src, ninfo, false, script, null);
+            }
+            return script;
+        } catch (RuntimeException xany) {
+            if (listener != null) {
+                listenEnd(JexlListener.Type.PARSE_END, start, null, src, info, false, null, xany);
+            }
+            throw xany;
+        }
+    }
+
+    /**
+     * Notifies the listener of a parsing or execution start.
+     * @param type   the event type
+     * @param script the executed script or null
+     * @param src    the parsed source or null
+     * @param info   the info or null
+     * @return the start time in nanoseconds
+     */
+    long listenStart(JexlListener.Type type, JexlScript script, String src, JexlInfo info) {
+        listen(listenerEvent(type).script(script, src, info));
+        return System.nanoTime();
+    }
+
+    /**
+     * Notifies the listener of a parsing or execution end.
+     * @param type   the event type
+     * @param start  the start time in nanoseconds
+     * @param script the executed script or null
+     * @param src    the parsed source or null
+     * @param info   the info or null
+     * @param cached whether the parsed script was found in the cache
+     * @param result the result
+     * @param error  the error or null
+     */
+    void listenEnd(JexlListener.Type type, long start, JexlScript script, String src, JexlInfo info,
+                   boolean cached, Object result, Throwable error) {
+        final long duration = System.nanoTime() - start;
+        listen(listenerEvent(type).script(script, src, info).outcome(cached, result, error, duration));
+    }
+
+    /**
+     * Notifies the listener of a node event.
+     * @param type the event type
+     * @param node the node or null
+     * @param info the info or null, derived from the node if null
+     * @param name the method, function or property name or null
+     */
+    void listenNode(JexlListener.Type type, JexlNode node, JexlInfo info, String name) {
+        listen(listenerEvent(type).script(null, null, info).node(node, name));
+    }
+
+    /**
+     * Gets the event to pass to the listener.
+     * <p>The per-thread event is reused unless the listener is being called with it, a listener
+     * evaluating scripts getting new instances.</p>
+     * @param type the event type
+     * @return the event
+     */
+    private ListenerEvent listenerEvent(JexlListener.Type type) {
+        ListenerEvent event = listenerEvents.get();
+        if (event.isListening()) {
+            event = new ListenerEvent();
         }
-        if (source != null) {
-            cache.put(source, script);
+        return event.reset(type);
+    }
+
+    /**
+     * Calls the listener.
+     * @param event the event
+     */
+    private void listen(ListenerEvent event) {
+        final boolean listening = event.isListening();
+        event.setListening(true);
+        try {
+            listener.onEvent(event);
+        } catch (RuntimeException xany) {
+            if (logger.isWarnEnabled()) {
+                logger.warn("listener failed on " + event, xany);
+            }
+        } finally {
+            event.setListening(listening);
         }
-        return script;
     }
 
     /**
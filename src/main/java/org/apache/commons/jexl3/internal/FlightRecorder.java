@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.JxltEngine;
+
+/**
+ * Emits JDK Flight Recorder events for parsing, execution, introspection and template rendering.
+ * <p>
+ * This implementation records nothing; on Java 11 and later, the multi-release jar provides an implementation
+ * of this class that emits <code>org.apache.commons.jexl3.*</code> events in the JEXL category.</p>
+ * <p>
+ * Each begin method returns an event handle - null if the event is not recorded - that is to be passed to
+ * the matching end method.</p>
+ * @since 3.2
+ */
+public final class FlightRecorder {
+    /** Not instantiable. */
+    private FlightRecorder() {
+    }
+
+    /**
+     * Called before parsing a source.
+     * @return the event handle
+     */
+    public static Object beginParse() {
+        return null;
+    }
+
+    /**
+     * Called after parsing a source or finding it in the cache.
+     * @param event  the event handle
+     * @param length the source length
+     * @param cached whether the script was found in the cache
+     */
+    public static void endParse(Object event, int length, boolean cached) {
+        // nothing to record
+    }
+
+    /**
+     * Called before executing a script.
+     * @return the event handle
+     */
+    public static Object beginExecute() {
+        return null;
+    }
+
+    /**
+     * Called after executing a script.
+     * @param event  the event handle
+     * @param script the script
+     * @param ok     whether the execution completed normally
+     */
+    public static void endExecute(Object event, JexlScript script, boolean ok) {
+        // nothing to record
+    }
+
+    /**
+     * Called before resolving a method, property accessor or constructor.
+     * @return the event handle
+     */
+    public static Object beginResolve() {
+        return null;
+    }
+
+    /**
+     * Called after resolving a method, property accessor or constructor.
+     * @param event  the event handle
+     * @param kind   the resolution kind, one of method, get, set or constructor
+     * @param target the target object
+     * @param name   the method name, property identifier or constructor handle
+     * @param found  whether an executor was found
+     */
+    public static void endResolve(Object event, String kind, Object target, Object name, boolean found) {
+        // nothing to record
+    }
+
+    /**
+     * Called before rendering a template.
+     * @return the event handle
+     */
+    public static Object beginRender() {
+        return null;
+    }
+
+    /**
+     * Called after rendering a template.
+     * @param event    the event handle
+     * @param template the template
+     * @param ok       whether the rendering completed normally
+     */
+    public static void endRender(Object event, JxltEngine.Template template, boolean ok) {
+        // nothing to record
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlArithmetic;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlFeatures;
+import org.apache.commons.jexl3.JxltEngine;
+import org.apache.commons.jexl3.introspection.JexlUberspect;
+import org.apache.commons.logging.Log;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the memory retained by compiled scripts.
+ * <p>
+ * The estimate walks the object graph reachable from a script, counting each object once, and assumes
+ * a 64-bit JVM using compressed references. Objects shared with the engine or the JVM - classes, reflection
+ * members, the engine and its uberspect, arithmetic, features or logger - are not counted.</p>
+ */
+final class Footprint {
+    /** The object header size. */
+    static final int HEADER = 12;
+    /** The array header size. */
+    static final int ARRAY_HEADER = 16;
+    /** The reference size. */
+    static final int REFERENCE = 4;
+    /** The object alignment. */
+    static final int ALIGNMENT = 8;
+    /** The shallow size of a string, its character array excluded. */
+    private static final long STRING = align(HEADER + REFERENCE + 4);
+    /** The layouts per class. */
+    private static final Map<Class<?>, Layout> LAYOUTS = new ConcurrentHashMap<Class<?>, Layout>();
+
+    /** Not instantiable. */
+    private Footprint() {
+    }
+
+    /**
+     * The size and reference fields of a class instances.
+     */
+    private static final class Layout {
+        /** The instance shallow size. */
+        private final long size;
+        /** The instance reference fields that can be followed. */
+        private final Field[] references;
+
+        /**
+         * Creates a class layout.
+         * @param clazz the class
+         */
+        Layout(Class<?> clazz) {
+            long bytes = HEADER;
+            List<Field> fields = new ArrayList<Field>();
+            for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) {
+                        continue;
+                    }
+                    Class<?> type = field.getType();
+                    bytes += type.isPrimitive() ? primitiveSize(type) : REFERENCE;
+                    if (!type.isPrimitive()) {
+                        try {
+                            field.setAccessible(true);
+                            fields.add(field);
+                        } catch (RuntimeException xaccess) {
+                            // not accessible, only its shallow size will count
+                        }
+                    }
+                }
+            }
+            size = align(bytes);
+            references = fields.toArray(new Field[fields.size()]);
+        }
+    }
+
+    /**
+     * Aligns a size on the object alignment.
+     * @param bytes the size
+     * @return the aligned size
+     */
+    static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) & ~(ALIGNMENT - 1);
+    }
+
+    /**
+     * Gets the size of a primitive type.
+     * @param type the primitive type
+     * @return its size in bytes
+     */
+    static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        }
+        if (type == int.class || type == float.class) {
+            return 4;
+        }
+        if (type == short.class || type == char.class) {
+            return 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Checks whether an object is shared with the engine or the JVM and thus not retained by a script.
+     * @param obj the object
+     * @return true if shared, false otherwise
+     */
+    private static boolean isShared(Object obj) {
+        return obj instanceof Class<?>
+               || obj instanceof ClassLoader
+               || obj instanceof AccessibleObject
+               || obj instanceof Enum<?>
+               || obj instanceof Thread
+               || obj instanceof JexlEngine
+               || obj instanceof JxltEngine
+               || obj instanceof JexlUberspect
+               || obj instanceof JexlArithmetic
+               || obj instanceof JexlFeatures
+               || obj instanceof Log;
+    }
+
+    /**
+     * Estimates the size of the objects reachable from a root.
+     * @param root the root object
+     * @return the estimated size in bytes
+     */
+    static long sizeOf(Object root) {
+        final Map<Object, Object> visited = new IdentityHashMap<Object, Object>();
+        final Deque<Object> pending = new ArrayDeque<Object>();
+        long bytes = 0;
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Object obj = pending.pop();
+            if (isShared(obj) || visited.put(obj, obj) != null) {
+                continue;
+            }
+            Class<?> clazz = obj.getClass();
+            if (obj instanceof String) {
+                bytes += STRING + align(ARRAY_HEADER + 2L * ((String) obj).length());
+            } else if (clazz.isArray()) {
+                Class<?> component = clazz.getComponentType();
+                int length = Array.getLength(obj);
+                if (component.isPrimitive()) {
+                    bytes += align(ARRAY_HEADER + (long) length * primitiveSize(component));
+                } else {
+                    bytes += align(ARRAY_HEADER + (long) length * REFERENCE);
+                    for (Object element : (Object[]) obj) {
+                        if (element != null) {
+                            pending.push(element);
+                        }
+                    }
+                }
+            } else {
+                Layout layout = LAYOUTS.get(clazz);
+                if (layout == null) {
+                    layout = new Layout(clazz);
+                    LAYOUTS.put(clazz, layout);
+                }
+                bytes += layout.size;
+                for (Field field : layout.references) {
+                    try {
+                        Object value = field.get(obj);
+                        if (value != null) {
+                            pending.push(value);
+                        }
+                    } catch (IllegalAccessException xaccess) {
+                        // not accessible, ignore
+                    }
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -22,6 +22,7 @@ import org.apache.commons.jexl3.JexlArithmetic;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlListener;
 import org.apache.commons.jexl3.JexlOperator;
 import org.apache.commons.jexl3.JexlScript;
 
@@ -105,13 +106,15 @@ import org.apache.commons.jexl3.parser.ASTUnaryMinusNode;
 import org.apache.commons.jexl3.parser.ASTVar;
 import org.apache.commons.jexl3.parser.ASTWhileStatement;
 import org.apache.commons.jexl3.parser.JexlNode;
-import org.apache.commons.jexl3.parser.Node;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import org.apache.commons.jexl3.JxltEngine;
 
 
@@ -133,6 +136,22 @@ public class Interpreter extends InterpreterBase {
     protected final Map<String, Object> functions;
     /** The map of dynamically creates namespaces, NamespaceFunctor or duck-types of those. */
     protected Map<String, Object> functors;
+    /** The interpretation of a node as an object. */
+    static final int OBJECT = 0;
+    /** The interpretation of a node as a boolean. */
+    static final int BOOLEAN = 1;
+    /** The interpretation of a node as a long. */
+    static final int LONG = 2;
+    /** The interpretation of a node as a double. */
+    static final int DOUBLE = 3;
+    /** The result of the last primitive interpretation. */
+    private long primitive = 0L;
+    /** The nesting depth of interpretations run by this interpreter. */
+    private int interpreting = 0;
+    /** The closure called through {@link #call(JexlNode, Closure, Object[])} executed by this interpreter. */
+    private Closure callee = null;
+    /** The interpreter running on the current thread, calls closures invoked from Java code during its run. */
+    private static final java.lang.ThreadLocal<Interpreter> RUNNING = new java.lang.ThreadLocal<Interpreter>();
 
     /**
      * Creates an interpreter.
@@ -169,6 +188,22 @@ public class Interpreter extends InterpreterBase {
         functors = ii.functors;
     }
 
+    /**
+     * Copy constructor using another frame.
+     * <p>The context, arithmetic, operators and namespaces of the copied interpreter are shared.</p>
+     * @param ii     the interpreter to copy
+     * @param eFrame the interpreter evaluation frame
+     */
+    protected Interpreter(Interpreter ii, Scope.Frame eFrame) {
+        super(ii, null);
+        operators = ii.operators;
+        cache = ii.cache;
+        frame = eFrame;
+        ns = ii.ns;
+        functions = ii.functions;
+        functors = ii.functors;
+    }
+
     /**
      * Interpret the given script/expression.
      * <p>
@@ -179,47 +214,744 @@ public class Interpreter extends InterpreterBase {
      * @throws JexlException if any error occurs during interpretation.
      */
     public Object interpret(JexlNode node) {
+        return interpret(node, OBJECT);
+    }
+
+    /**
+     * Interpret the given script/expression as a boolean.
+     * <p>
+     * Logical, comparison and ternary nodes are evaluated as primitives; the arithmetic
+     * coercion is only used when a node yields an object.
+     * If the underlying JEXL engine is silent, errors are logged and the result is false.
+     * @param node the script or expression to interpret.
+     * @return the boolean result of the interpretation.
+     * @throws JexlException if any error occurs during interpretation.
+     * @since 3.2
+     */
+    public boolean interpretBoolean(JexlNode node) {
+        interpret(node, BOOLEAN);
+        return primitive != 0L;
+    }
+
+    /**
+     * Interpret the given script/expression as a long.
+     * <p>
+     * Additive and multiplicative nodes on numbers are evaluated as primitives; the arithmetic
+     * coercion is only used when a node yields an object.
+     * If the underlying JEXL engine is silent, errors are logged and the result is 0.
+     * @param node the script or expression to interpret.
+     * @return the long result of the interpretation.
+     * @throws JexlException if any error occurs during interpretation.
+     * @since 3.2
+     */
+    public long interpretLong(JexlNode node) {
+        interpret(node, LONG);
+        return primitive;
+    }
+
+    /**
+     * Interpret the given script/expression as a double.
+     * <p>
+     * Additive and multiplicative nodes on numbers are evaluated as primitives; the arithmetic
+     * coercion is only used when a node yields an object.
+     * If the underlying JEXL engine is silent, errors are logged and the result is 0.
+     * @param node the script or expression to interpret.
+     * @return the double result of the interpretation.
+     * @throws JexlException if any error occurs during interpretation.
+     * @since 3.2
+     */
+    public double interpretDouble(JexlNode node) {
+        interpret(node, DOUBLE);
+        return Double.longBitsToDouble(primitive);
+    }
+
+    /**
+     * Interpret the given script/expression as an object or a primitive.
+     * <p>A primitive result is not returned but kept as the {@link #getPrimitive() primitive} of this interpreter.</p>
+     * @param node the script or expression to interpret.
+     * @param type OBJECT, BOOLEAN, LONG or DOUBLE
+     * @return the result of the interpretation, null if interpreted as a primitive
+     * @throws JexlException if any error occurs during interpretation.
+     */
+    Object interpret(JexlNode node, int type) {
         JexlContext.ThreadLocal tcontext = null;
         JexlEngine tjexl = null;
+        final Interpreter tinterpreter = RUNNING.get();
+        interpreting += 1;
         try {
             cancelCheck(node);
             if (context instanceof JexlContext.ThreadLocal) {
                 tcontext = jexl.putThreadLocal((JexlContext.ThreadLocal) context);
             }
             tjexl = jexl.putThreadEngine(jexl);
-            return node.jjtAccept(this, null);
-        } catch (JexlException.Return xreturn) {
-            return xreturn.getValue();
-        } catch (JexlException.Cancel xcancel) {
-            cancelled |= Thread.interrupted();
-            if (isCancellable()) {
-                throw xcancel.clean();
+            RUNNING.set(this);
+            switch (type) {
+                case OBJECT:
+                    return accept(node, null);
+                case BOOLEAN:
+                    primitive = evalBoolean(node, null) ? 1L : 0L;
+                    break;
+                case LONG:
+                    primitive = evalLong(node, null);
+                    break;
+                default:
+                    primitive = Double.doubleToRawLongBits(evalDouble(node, null));
             }
+            return null;
         } catch (JexlException xjexl) {
-            if (!isSilent()) {
-                throw xjexl.clean();
+            Object value = interpretError(xjexl);
+            if (type == OBJECT) {
+                return value;
             }
-            if (logger.isWarnEnabled()) {
-                logger.warn(xjexl.getMessage(), xjexl.getCause());
+            // a returned value still needs coercion
+            primitive = 0L;
+            if (value != null) {
+                try {
+                    switch (type) {
+                        case BOOLEAN:
+                            primitive = toBoolean(node, value) ? 1L : 0L;
+                            break;
+                        case LONG:
+                            primitive = toLong(node, value);
+                            break;
+                        default:
+                            primitive = Double.doubleToRawLongBits(toDouble(node, value));
+                    }
+                } catch (JexlException xcoerce) {
+                    interpretError(xcoerce);
+                }
             }
+            return null;
         } finally {
-            synchronized(this) {
-                if (functors != null) {
-                    if (AUTOCLOSEABLE != null) {
-                        for (Object functor : functors.values()) {
-                            closeIfSupported(functor);
-                        }
+            interpretEnd(tjexl, tcontext);
+            RUNNING.set(tinterpreter);
+        }
+    }
+
+    /**
+     * Gets the result of the last primitive interpretation.
+     * @return the result, 0 or 1 for a boolean and the raw long bits for a double
+     */
+    long getPrimitive() {
+        return primitive;
+    }
+
+    /**
+     * Boxes the result of the last primitive interpretation.
+     * @param type BOOLEAN, LONG or DOUBLE
+     * @return the boxed result
+     */
+    Object getPrimitiveValue(int type) {
+        switch (type) {
+            case BOOLEAN:
+                return primitive != 0L;
+            case LONG:
+                return primitive;
+            default:
+                return Double.longBitsToDouble(primitive);
+        }
+    }
+
+    /**
+     * Handles an exception that reached the top of an interpretation.
+     * @param xjexl the exception
+     * @return the returned value if any, null otherwise
+     * @throws JexlException if the exception must be propagated
+     */
+    private Object interpretError(JexlException xjexl) {
+        if (xjexl instanceof JexlException.Return) {
+            return ((JexlException.Return) xjexl).getValue();
+        }
+        if (xjexl instanceof JexlException.Cancel) {
+            cancelled |= Thread.interrupted();
+            if (jexl.listener != null) {
+                jexl.listenNode(JexlListener.Type.CANCEL, null, xjexl.getInfo(), null);
+            }
+            if (isCancellable()) {
+                throw xjexl.clean();
+            }
+            return null;
+        }
+        if (!isSilent()) {
+            throw xjexl.clean();
+        }
+        if (logger.isWarnEnabled()) {
+            logger.warn(xjexl.getMessage(), xjexl.getCause());
+        }
+        return null;
+    }
+
+    /**
+     * Releases the resources held during an interpretation.
+     * @param tjexl the thread engine to restore
+     * @param tcontext the thread context to restore
+     */
+    private void interpretEnd(JexlEngine tjexl, JexlContext.ThreadLocal tcontext) {
+        // functors are released by the outermost interpretation only
+        if (--interpreting == 0) {
+            closeFunctors();
+        }
+        jexl.putThreadEngine(tjexl);
+        if (context instanceof JexlContext.ThreadLocal) {
+            jexl.putThreadLocal(tcontext);
+        }
+    }
+
+    /**
+     * Closes and releases the namespace functors created during an interpretation.
+     */
+    private void closeFunctors() {
+        synchronized(this) {
+            if (functors != null) {
+                if (AUTOCLOSEABLE != null) {
+                    for (Object functor : functors.values()) {
+                        closeIfSupported(functor);
                     }
-                    functors.clear();
-                    functors = null;
                 }
+                functors.clear();
+                functors = null;
             }
-            jexl.putThreadEngine(tjexl);
-            if (context instanceof JexlContext.ThreadLocal) {
-                jexl.putThreadLocal(tcontext);
+        }
+    }
+
+    /**
+     * Calls a closure within this interpreter.
+     * <p>This is equivalent to executing the closure with this interpreter context but the engine thread
+     * locals are already set and the interpreter state - arithmetic, operators, namespaces - is shared;
+     * only the call frame and a lightweight interpreter are created.</p>
+     * @param node the calling node, null when the closure is invoked from Java code
+     * @param closure the closure
+     * @param argv the arguments
+     * @return the closure result
+     */
+    protected Object call(JexlNode node, Closure closure, Object[] argv) {
+        final JexlNode block = closure.script.jjtGetChild(closure.script.jjtGetNumChildren() - 1);
+        final Object event = FlightRecorder.beginExecute();
+        final long start = jexl.listener != null
+                           ? jexl.listenStart(JexlListener.Type.EXECUTE_START, closure, null, null)
+                           : 0L;
+        Object result = null;
+        RuntimeException error = null;
+        boolean ok = false;
+        try {
+            Object[] args = argv;
+            while (true) {
+                final Scope.Frame callFrame = closure.frame != null ? closure.frame.assign(args) : null;
+                final Interpreter ii = createCallInterpreter(callFrame);
+                ii.callee = closure;
+                result = interpretNested(ii, block);
+                // a self-recursive call in tail position loops instead of growing the stack
+                if (result instanceof TailCall) {
+                    args = ((TailCall) result).argv;
+                } else {
+                    ok = true;
+                    return result;
+                }
+            }
+        } catch (RuntimeException xany) {
+            error = xany;
+            throw xany;
+        } finally {
+            FlightRecorder.endExecute(event, closure, ok);
+            if (jexl.listener != null) {
+                jexl.listenEnd(JexlListener.Type.EXECUTE_END, start, closure, null, null, false,
+                               ok ? result : null, error);
             }
         }
-        return null;
+    }
+
+    /**
+     * Finds the interpreter able to call a closure invoked from Java code.
+     * <p>A closure executed by a Java method called from a script, for instance one iterating over a collection,
+     * can be called through {@link #call(JexlNode, Closure, Object[])} by the interpreter running that script
+     * on the current thread when it uses the same context.</p>
+     * @param closure the closure
+     * @param context the closure execution context
+     * @return the running interpreter or null if the closure must be executed by a new interpreter
+     */
+    static Interpreter callerOf(Closure closure, JexlContext context) {
+        final Interpreter running = RUNNING.get();
+        return running != null && running.context == context && running.isInlineCallable(closure)
+               ? running
+               : null;
+    }
+
+    /**
+     * Evaluates a node.
+     * <p>This is the single point through which the interpreter visits nodes; derived interpreters
+     * may override it to observe or decorate all node evaluations.</p>
+     * @param node the node
+     * @param data the data
+     * @return the node value
+     */
+    protected Object accept(JexlNode node, Object data) {
+        return node.jjtAccept(this, data);
+    }
+
+    /**
+     * Interprets a node with an interpreter sharing this interpreter state.
+     * <p>The engine thread locals are already set; the namespace functors shared with this interpreter
+     * are left open since this interpreter is still running, only those created by the nested one
+     * are released.</p>
+     * @param ii   the nested interpreter
+     * @param node the node to interpret
+     * @return the result of the interpretation
+     */
+    protected Object interpretNested(Interpreter ii, JexlNode node) {
+        ii.interpreting += 1;
+        try {
+            ii.cancelCheck(node);
+            return ii.accept(node, null);
+        } catch (JexlException xjexl) {
+            return ii.interpretError(xjexl);
+        } finally {
+            ii.interpreting -= 1;
+            if (ii.isCancelled()) {
+                cancel();
+            }
+            // namespaces created by the nested interpreter only are released
+            if (ii.functors != functors) {
+                ii.closeFunctors();
+            }
+        }
+    }
+
+    /**
+     * Creates the interpreter running a closure called through {@link #call(JexlNode, Closure, Object[])}.
+     * @param callFrame the call frame
+     * @return an interpreter sharing this interpreter state
+     */
+    protected Interpreter createCallInterpreter(Scope.Frame callFrame) {
+        return new Interpreter(this, callFrame);
+    }
+
+    /**
+     * The arguments of a self-recursive closure call in tail position.
+     */
+    private static final class TailCall {
+        /** The call arguments. */
+        private final Object[] argv;
+
+        /**
+         * Creates a tail call.
+         * @param args the call arguments
+         */
+        TailCall(Object[] args) {
+            argv = args;
+        }
+    }
+
+    /**
+     * Whether a closure can be called through {@link #call(JexlNode, Closure, Object[])}.
+     * <p>The closure must be a plain closure created by this engine, which must create plain interpreters.</p>
+     * @param closure the closure
+     * @return true if the closure can be called within this interpreter
+     */
+    private boolean isInlineCallable(Closure closure) {
+        return closure.getClass() == Closure.class
+               && closure.jexl == jexl
+               && jexl.getClass() == Engine.class;
+    }
+
+    /**
+     * Whether the arithmetic is the base one, thus neither overloading nor overriding operators.
+     * @return true if primitive evaluation shortcuts can be used
+     */
+    private boolean isBaseArithmetic() {
+        return arithmetic.getClass() == JexlArithmetic.class;
+    }
+
+    /**
+     * Checks whether a value is a number whose primitive arithmetic is the same as the boxed one.
+     * @param value the value
+     * @return true if Integer, Long, Short, Byte or Double
+     */
+    private static boolean isPrimitiveNumber(Object value) {
+        return value instanceof Integer
+                || value instanceof Long
+                || value instanceof Double
+                || value instanceof Short
+                || value instanceof Byte;
+    }
+
+    /** Marker for comparisons that can not be performed on primitives. */
+    private static final int NOT_PRIMITIVE = Integer.MIN_VALUE;
+
+    /**
+     * Gets the frame slot of a local variable operand.
+     * @param node the operand node
+     * @return the symbol or -1 if the operand is not a local variable
+     */
+    private int localSymbol(JexlNode node) {
+        return node instanceof ASTIdentifier && node.jjtGetNumChildren() == 0
+               ? ((ASTIdentifier) node).getSymbol()
+               : -1;
+    }
+
+    /**
+     * Gets the value of a number literal or of a local variable stored as an object.
+     * @param node the operand node
+     * @param symbol the operand local symbol
+     * @return the value if it is a number with primitive arithmetic, null otherwise
+     */
+    private Number primitiveOperand(JexlNode node, int symbol) {
+        Object value = symbol >= 0
+                       ? frame.get(symbol)
+                       : node instanceof ASTNumberLiteral ? ((ASTNumberLiteral) node).getLiteral() : null;
+        return isPrimitiveNumber(value) ? (Number) value : null;
+    }
+
+    /**
+     * Compares operands without boxing when one of them is a numeric local variable stored as a primitive.
+     * <p>Only local variables and number literals are considered since they can be read without side effects;
+     * the comparison follows the base arithmetic rules.</p>
+     * @param node the comparison node
+     * @return the comparison result (-1, 0, +1) or NOT_PRIMITIVE
+     */
+    private int comparePrimitive(JexlNode node) {
+        if (frame == null || !isBaseArithmetic()) {
+            return NOT_PRIMITIVE;
+        }
+        final JexlNode lnode = node.jjtGetChild(0);
+        final JexlNode rnode = node.jjtGetChild(1);
+        final int lsymbol = localSymbol(lnode);
+        final int rsymbol = localSymbol(rnode);
+        final int ltype = lsymbol >= 0 ? frame.getType(lsymbol) : Scope.Frame.OBJECT;
+        final int rtype = rsymbol >= 0 ? frame.getType(rsymbol) : Scope.Frame.OBJECT;
+        if (ltype == Scope.Frame.OBJECT && rtype == Scope.Frame.OBJECT) {
+            return NOT_PRIMITIVE;
+        }
+        Number lnumber = null;
+        if (ltype == Scope.Frame.OBJECT) {
+            lnumber = primitiveOperand(lnode, lsymbol);
+            if (lnumber == null) {
+                return NOT_PRIMITIVE;
+            }
+        }
+        Number rnumber = null;
+        if (rtype == Scope.Frame.OBJECT) {
+            rnumber = primitiveOperand(rnode, rsymbol);
+            if (rnumber == null) {
+                return NOT_PRIMITIVE;
+            }
+        }
+        if (ltype == Scope.Frame.DOUBLE || rtype == Scope.Frame.DOUBLE
+            || lnumber instanceof Double || rnumber instanceof Double) {
+            final double l = lnumber != null
+                             ? lnumber.doubleValue()
+                             : ltype == Scope.Frame.DOUBLE ? frame.getDouble(lsymbol) : frame.getLong(lsymbol);
+            final double r = rnumber != null
+                             ? rnumber.doubleValue()
+                             : rtype == Scope.Frame.DOUBLE ? frame.getDouble(rsymbol) : frame.getLong(rsymbol);
+            if (Double.isNaN(l)) {
+                return Double.isNaN(r) ? 0 : -1;
+            }
+            if (Double.isNaN(r)) {
+                return +1;
+            }
+            return l < r ? -1 : l > r ? +1 : 0;
+        }
+        final long l = lnumber != null ? lnumber.longValue() : frame.getLong(lsymbol);
+        final long r = rnumber != null ? rnumber.longValue() : frame.getLong(rsymbol);
+        return l < r ? -1 : l > r ? +1 : 0;
+    }
+
+    /**
+     * Performs a self assignment (+=, -=, *=) of a numeric local variable using the frame primitive slots.
+     * <p>The result type follows the base arithmetic rules; an integer overflow that would require
+     * a BigInteger is not handled.</p>
+     * @param symbol the local variable symbol
+     * @param assignop the assignment operator
+     * @param right the right operand value
+     * @return true if the assignment was performed, false otherwise
+     */
+    private boolean assignPrimitive(int symbol, JexlOperator assignop, Object right) {
+        if (!isBaseArithmetic() || !isPrimitiveNumber(right)) {
+            return false;
+        }
+        final int op = assignop == JexlOperator.SELF_ADD ? 0
+                     : assignop == JexlOperator.SELF_SUBTRACT ? 1
+                     : assignop == JexlOperator.SELF_MULTIPLY ? 2 : -1;
+        if (op < 0) {
+            return false;
+        }
+        final int ltype = frame.getType(symbol);
+        Number lnumber = null;
+        if (ltype == Scope.Frame.OBJECT) {
+            lnumber = primitiveOperand(null, symbol);
+            if (lnumber == null) {
+                return false;
+            }
+        }
+        final Number rnumber = (Number) right;
+        if (ltype == Scope.Frame.DOUBLE || lnumber instanceof Double || rnumber instanceof Double) {
+            final double l = lnumber != null
+                             ? lnumber.doubleValue()
+                             : ltype == Scope.Frame.DOUBLE ? frame.getDouble(symbol) : frame.getLong(symbol);
+            final double r = rnumber.doubleValue();
+            frame.setDouble(symbol, op == 0 ? l + r : op == 1 ? l - r : l * r);
+            return true;
+        }
+        final long l = lnumber != null ? lnumber.longValue() : frame.getLong(symbol);
+        final long r = rnumber.longValue();
+        final long result;
+        final boolean overflow;
+        if (op == 0) {
+            result = l + r;
+            overflow = ((l ^ result) & (r ^ result)) < 0;
+        } else if (op == 1) {
+            result = l - r;
+            overflow = ((l ^ r) & (l ^ result)) < 0;
+        } else {
+            result = l * r;
+            overflow = l != 0 && (result / l != r || (l == -1 && r == Long.MIN_VALUE));
+        }
+        if (overflow) {
+            return false;
+        }
+        // narrow as the base arithmetic does: long if either operand is a long, int when it fits otherwise
+        if (ltype == Scope.Frame.LONG || lnumber instanceof Long || rnumber instanceof Long
+            || result > Integer.MAX_VALUE || result < Integer.MIN_VALUE) {
+            frame.setLong(symbol, result);
+        } else {
+            frame.setInt(symbol, (int) result);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the node that yields the value of a script or expression.
+     * <p>All but the last statement of a script are evaluated.</p>
+     * @param node the node
+     * @param data the data
+     * @return the node whose value is the result, null if none
+     */
+    private JexlNode evalTail(JexlNode node, Object data) {
+        JexlNode tail = node;
+        while (true) {
+            if (tail instanceof ASTReferenceExpression) {
+                tail = tail.jjtGetChild(0);
+            } else if (tail instanceof ASTJexlScript
+                       && !(tail instanceof ASTJexlLambda && !((ASTJexlLambda) tail).isTopLevel())) {
+                final int last = tail.jjtGetNumChildren() - 1;
+                if (last < 0) {
+                    return null;
+                }
+                for (int i = 0; i < last; i++) {
+                    JexlNode child = tail.jjtGetChild(i);
+                    execute(child, data, true);
+                    cancelCheck(child);
+                }
+                tail = tail.jjtGetChild(last);
+            } else {
+                return tail;
+            }
+        }
+    }
+
+    /**
+     * Evaluates a node as a primitive boolean.
+     * @param node the node
+     * @param data the data
+     * @return the boolean value
+     */
+    protected boolean evalBoolean(JexlNode node, Object data) {
+        JexlNode tail = evalTail(node, data);
+        if (tail == null) {
+            return false;
+        }
+        if (tail instanceof ASTAndNode || tail instanceof ASTOrNode) {
+            // and/or chains are n-ary; stop at the first operand deciding the result
+            final boolean and = tail instanceof ASTAndNode;
+            final int count = tail.jjtGetNumChildren();
+            for (int c = 0; c < count; ++c) {
+                if (evalBoolean(tail.jjtGetChild(c), data) != and) {
+                    return !and;
+                }
+            }
+            return and;
+        }
+        if (tail instanceof ASTNotNode && isBaseArithmetic()) {
+            return !evalBoolean(tail.jjtGetChild(0), data);
+        }
+        if (tail instanceof ASTTrueNode) {
+            return true;
+        }
+        if (tail instanceof ASTFalseNode) {
+            return false;
+        }
+        if (tail instanceof ASTTernaryNode && tail.jjtGetNumChildren() == 3) {
+            return evalBoolean(tail.jjtGetChild(evalCondition(tail, data) ? 1 : 2), data);
+        }
+        return toBoolean(tail, accept(tail, data));
+    }
+
+    /**
+     * Coerces the value of a node to a boolean.
+     * @param node the node
+     * @param value the node value
+     * @return the boolean value
+     * @throws JexlException if the coercion fails
+     */
+    protected boolean toBoolean(JexlNode node, Object value) {
+        try {
+            return arithmetic.toBoolean(value);
+        } catch (ArithmeticException xrt) {
+            throw new JexlException(node, "boolean coercion error", xrt);
+        }
+    }
+
+    /**
+     * Coerces the value of a node to a long.
+     * @param node the node
+     * @param value the node value
+     * @return the long value
+     * @throws JexlException if the coercion fails
+     */
+    protected long toLong(JexlNode node, Object value) {
+        try {
+            return arithmetic.toLong(value);
+        } catch (ArithmeticException xrt) {
+            throw new JexlException(node, "long coercion error", xrt);
+        }
+    }
+
+    /**
+     * Coerces the value of a node to a double.
+     * @param node the node
+     * @param value the node value
+     * @return the double value
+     * @throws JexlException if the coercion fails
+     */
+    protected double toDouble(JexlNode node, Object value) {
+        try {
+            return arithmetic.toDouble(value);
+        } catch (ArithmeticException xrt) {
+            throw new JexlException(node, "double coercion error", xrt);
+        }
+    }
+
+    /**
+     * Evaluates the condition of a ternary node.
+     * @param node the ternary node
+     * @param data the data
+     * @return the condition value
+     */
+    private boolean evalCondition(JexlNode node, Object data) {
+        JexlNode child = node.jjtGetChild(0);
+        Object condition = accept(child, data);
+        return condition != null && toBoolean(child, condition);
+    }
+
+    /**
+     * Evaluates a node as a primitive long.
+     * @param node the node
+     * @param data the data
+     * @return the long value
+     */
+    protected long evalLong(JexlNode node, Object data) {
+        JexlNode tail = evalTail(node, data);
+        if (tail == null) {
+            return 0L;
+        }
+        if (tail instanceof ASTTernaryNode && tail.jjtGetNumChildren() == 3) {
+            return evalLong(tail.jjtGetChild(evalCondition(tail, data) ? 1 : 2), data);
+        }
+        final Object value;
+        if ((tail instanceof ASTAddNode || tail instanceof ASTSubNode || tail instanceof ASTMulNode)
+            && tail.jjtGetNumChildren() == 2 && isBaseArithmetic()) {
+            Object left = accept(tail.jjtGetChild(0), data);
+            Object right = accept(tail.jjtGetChild(1), data);
+            if (isPrimitiveNumber(left) && isPrimitiveNumber(right)) {
+                if (left instanceof Double || right instanceof Double) {
+                    double l = ((Number) left).doubleValue();
+                    double r = ((Number) right).doubleValue();
+                    double result = tail instanceof ASTAddNode ? l + r : tail instanceof ASTSubNode ? l - r : l * r;
+                    return Double.isNaN(result) ? 0L : (long) result;
+                }
+                // long arithmetic wraps like the low order bits of the BigInteger result
+                long l = ((Number) left).longValue();
+                long r = ((Number) right).longValue();
+                return tail instanceof ASTAddNode ? l + r : tail instanceof ASTSubNode ? l - r : l * r;
+            }
+            value = evalArithmetic(tail, left, right);
+        } else {
+            value = accept(tail, data);
+        }
+        return toLong(tail, value);
+    }
+
+    /**
+     * Evaluates a node as a primitive double.
+     * @param node the node
+     * @param data the data
+     * @return the double value
+     */
+    protected double evalDouble(JexlNode node, Object data) {
+        JexlNode tail = evalTail(node, data);
+        if (tail == null) {
+            return 0.d;
+        }
+        if (tail instanceof ASTTernaryNode && tail.jjtGetNumChildren() == 3) {
+            return evalDouble(tail.jjtGetChild(evalCondition(tail, data) ? 1 : 2), data);
+        }
+        final Object value;
+        if ((tail instanceof ASTAddNode || tail instanceof ASTSubNode || tail instanceof ASTMulNode)
+            && tail.jjtGetNumChildren() == 2 && isBaseArithmetic()) {
+            Object left = accept(tail.jjtGetChild(0), data);
+            Object right = accept(tail.jjtGetChild(1), data);
+            if (isPrimitiveNumber(left) && isPrimitiveNumber(right)) {
+                if (left instanceof Double || right instanceof Double) {
+                    double l = ((Number) left).doubleValue();
+                    double r = ((Number) right).doubleValue();
+                    return tail instanceof ASTAddNode ? l + r : tail instanceof ASTSubNode ? l - r : l * r;
+                }
+                long l = ((Number) left).longValue();
+                long r = ((Number) right).longValue();
+                long result;
+                boolean overflow;
+                if (tail instanceof ASTAddNode) {
+                    result = l + r;
+                    overflow = ((l ^ result) & (r ^ result)) < 0;
+                } else if (tail instanceof ASTSubNode) {
+                    result = l - r;
+                    overflow = ((l ^ r) & (l ^ result)) < 0;
+                } else {
+                    result = l * r;
+                    overflow = l != 0 && (result / l != r || (l == -1 && r == Long.MIN_VALUE));
+                }
+                // on overflow, the exact (BigInteger) result is needed
+                if (!overflow) {
+                    return result;
+                }
+            }
+            value = evalArithmetic(tail, left, right);
+        } else {
+            value = accept(tail, data);
+        }
+        return toDouble(tail, value);
+    }
+
+    /**
+     * Performs an additive or multiplicative operation on already evaluated operands.
+     * @param node the add, sub or mul node
+     * @param left the left operand
+     * @param right the right operand
+     * @return the operation result
+     */
+    private Object evalArithmetic(JexlNode node, Object left, Object right) {
+        try {
+            if (node instanceof ASTAddNode) {
+                return arithmetic.add(left, right);
+            }
+            if (node instanceof ASTSubNode) {
+                return arithmetic.subtract(left, right);
+            }
+            return arithmetic.multiply(left, right);
+        } catch (ArithmeticException xrt) {
+            String op = node instanceof ASTAddNode ? "+" : node instanceof ASTSubNode ? "-" : "*";
+            throw new JexlException(findNullOperand(xrt, node, left, right), op + " error", xrt);
+        }
     }
 
     /**
@@ -298,20 +1030,25 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTAddNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
-        try {
-            Object result = operators.tryOverload(node, JexlOperator.ADD, left, right);
-            return result != JexlEngine.TRY_FAILED ? result : arithmetic.add(left, right);
-        } catch (ArithmeticException xrt) {
-            throw new JexlException(node, "+ error", xrt);
+        // additions chains are n-ary, fold them from the left
+        Object left = accept(node.jjtGetChild(0), data);
+        final int count = node.jjtGetNumChildren();
+        for (int c = 1; c < count; ++c) {
+            Object right = accept(node.jjtGetChild(c), data);
+            try {
+                Object result = operators.tryOverload(node, JexlOperator.ADD, left, right);
+                left = result != JexlEngine.TRY_FAILED ? result : arithmetic.add(left, right);
+            } catch (ArithmeticException xrt) {
+                throw new JexlException(node, "+ error", xrt);
+            }
         }
+        return left;
     }
 
     @Override
     protected Object visit(ASTSubNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.SUBTRACT, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.subtract(left, right);
@@ -322,8 +1059,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTMulNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.MULTIPLY, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.multiply(left, right);
@@ -335,8 +1072,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTDivNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.DIVIDE, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.divide(left, right);
@@ -351,8 +1088,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTModNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.MOD, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.mod(left, right);
@@ -367,8 +1104,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTBitwiseAndNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.AND, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.and(left, right);
@@ -379,8 +1116,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTBitwiseOrNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.OR, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.or(left, right);
@@ -391,8 +1128,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTBitwiseXorNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.XOR, left, right);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.xor(left, right);
@@ -403,8 +1140,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTEQNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.EQ, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -417,8 +1154,8 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTNENode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.EQ, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -432,8 +1169,12 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTGENode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        final int cmp = comparePrimitive(node);
+        if (cmp != NOT_PRIMITIVE) {
+            return cmp >= 0 ? Boolean.TRUE : Boolean.FALSE;
+        }
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.GTE, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -446,8 +1187,12 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTGTNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        final int cmp = comparePrimitive(node);
+        if (cmp != NOT_PRIMITIVE) {
+            return cmp > 0 ? Boolean.TRUE : Boolean.FALSE;
+        }
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.GT, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -460,8 +1205,12 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTLENode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        final int cmp = comparePrimitive(node);
+        if (cmp != NOT_PRIMITIVE) {
+            return cmp <= 0 ? Boolean.TRUE : Boolean.FALSE;
+        }
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.LTE, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -474,8 +1223,12 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTLTNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        final int cmp = comparePrimitive(node);
+        if (cmp != NOT_PRIMITIVE) {
+            return cmp < 0 ? Boolean.TRUE : Boolean.FALSE;
+        }
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.LT, left, right);
             return result != JexlEngine.TRY_FAILED
@@ -488,50 +1241,99 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTSWNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         return operators.startsWith(node, "^=", left, right) ? Boolean.TRUE : Boolean.FALSE;
     }
 
     @Override
     protected Object visit(ASTNSWNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         return operators.startsWith(node, "^!", left, right) ? Boolean.FALSE : Boolean.TRUE;
     }
 
     @Override
     protected Object visit(ASTEWNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         return operators.endsWith(node, "$=", left, right) ? Boolean.TRUE : Boolean.FALSE;
     }
 
     @Override
     protected Object visit(ASTNEWNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         return operators.endsWith(node, "$!", left, right) ? Boolean.FALSE : Boolean.TRUE;
     }
 
+    /**
+     * Evaluates the right operand of a =~ or !~ operator.
+     * <p>With the base arithmetic, a string literal is compiled as a pattern once and a constant array or set
+     * literal is materialized as a hashed set once; both are cached in their node. The set matches values as
+     * the evaluated literal would.</p>
+     * @param node the right operand node
+     * @param data the data
+     * @return the container value
+     */
+    private Object containerOperand(JexlNode node, Object data) {
+        if (cache
+            && (node instanceof ASTArrayLiteral || node instanceof ASTSetLiteral)
+            && node.isConstant()
+            && isBaseArithmetic()) {
+            Object cached = node.jjtGetValue();
+            if (cached instanceof MembershipSet) {
+                return cached;
+            }
+            Object literal = accept(node, data);
+            if (literal != null && (literal instanceof Collection<?> || literal.getClass().isArray())) {
+                MembershipSet members = new MembershipSet(literal);
+                node.jjtSetValue(members);
+                return members;
+            }
+            return literal;
+        }
+        if (cache && node instanceof ASTStringLiteral && isBaseArithmetic()) {
+            Object cached = node.jjtGetValue();
+            if (cached instanceof Pattern) {
+                return cached;
+            }
+            String regex = ((ASTStringLiteral) node).getLiteral();
+            try {
+                Pattern pattern = arithmetic.toPattern(regex);
+                node.jjtSetValue(pattern);
+                return pattern;
+            } catch (PatternSyntaxException xsyntax) {
+                return regex;
+            }
+        }
+        return accept(node, data);
+    }
+
     @Override
     protected Object visit(ASTERNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = containerOperand(node.jjtGetChild(1), data);
+        if (right instanceof MembershipSet) {
+            return ((MembershipSet) right).matches(left) ? Boolean.TRUE : Boolean.FALSE;
+        }
         return operators.contains(node, "=~", right, left) ? Boolean.TRUE : Boolean.FALSE;
     }
 
     @Override
     protected Object visit(ASTNRNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = containerOperand(node.jjtGetChild(1), data);
+        if (right instanceof MembershipSet) {
+            return ((MembershipSet) right).matches(left) ? Boolean.FALSE : Boolean.TRUE;
+        }
         return operators.contains(node, "!~", right, left) ? Boolean.FALSE : Boolean.TRUE;
     }
 
     @Override
     protected Object visit(ASTRangeNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object left = accept(node.jjtGetChild(0), data);
+        Object right = accept(node.jjtGetChild(1), data);
         try {
             return arithmetic.createRange(left, right);
         } catch (ArithmeticException xrt) {
@@ -543,7 +1345,7 @@ public class Interpreter extends InterpreterBase {
     @Override
     protected Object visit(ASTUnaryMinusNode node, Object data) {
         JexlNode valNode = node.jjtGetChild(0);
-        Object val = valNode.jjtAccept(this, data);
+        Object val = accept(valNode, data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.NEGATE, val);
             if (result != JexlEngine.TRY_FAILED) {
@@ -562,7 +1364,7 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTBitwiseComplNode node, Object data) {
-        Object arg = node.jjtGetChild(0).jjtAccept(this, data);
+        Object arg = accept(node.jjtGetChild(0), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.COMPLEMENT, arg);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.complement(arg);
@@ -573,7 +1375,7 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTNotNode node, Object data) {
-        Object val = node.jjtGetChild(0).jjtAccept(this, data);
+        Object val = accept(node.jjtGetChild(0), data);
         try {
             Object result = operators.tryOverload(node, JexlOperator.NOT, val);
             return result != JexlEngine.TRY_FAILED ? result : arithmetic.not(val);
@@ -584,23 +1386,34 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTIfStatement node, Object data) {
+        return executeIf(node, data, false);
+    }
+
+    /**
+     * Executes a conditional statement.
+     * @param node the node
+     * @param data the data
+     * @param discard whether the value of the statement is not used
+     * @return the value of the executed branch, null if discarded
+     */
+    private Object executeIf(ASTIfStatement node, Object data, boolean discard) {
         int n = 0;
         final int numChildren = node.jjtGetNumChildren();
         try {
             Object result = null;
             // pairs of { conditions , 'then' statement }
             for(int ifElse = 0; ifElse < (numChildren - 1); ifElse += 2) {
-                Object condition = node.jjtGetChild(ifElse).jjtAccept(this, null);
+                Object condition = accept(node.jjtGetChild(ifElse), null);
                 if (arithmetic.toBoolean(condition)) {
                     // first objectNode is true statement
-                    return node.jjtGetChild(ifElse + 1).jjtAccept(this, null);
+                    return execute(node.jjtGetChild(ifElse + 1), null, discard);
                 }
             }
             // if odd...
             if ((numChildren & 1) == 1) {
                 // if there is an else, there are an odd number of children in the statement and it is the last child,
                 // execute it.
-                result = node.jjtGetChild(numChildren - 1).jjtAccept(this, null);
+                result = execute(node.jjtGetChild(numChildren - 1), null, discard);
             }
             return result;
         } catch (ArithmeticException xrt) {
@@ -610,18 +1423,67 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTBlock node, Object data) {
+        return executeBlock(node, data, false);
+    }
+
+    /**
+     * Executes a block.
+     * @param node the node
+     * @param data the data
+     * @param discard whether the value of the block is not used
+     * @return the value of the last statement, null if discarded
+     */
+    private Object executeBlock(ASTBlock node, Object data, boolean discard) {
         int numChildren = node.jjtGetNumChildren();
         Object result = null;
         for (int i = 0; i < numChildren; i++) {
             cancelCheck(node);
-            result = node.jjtGetChild(i).jjtAccept(this, data);
+            // the value of all but the last statement is not used
+            result = execute(node.jjtGetChild(i), data, discard || i < numChildren - 1);
         }
         return result;
     }
 
+    /**
+     * Executes a statement.
+     * <p>When its value is not used, the statement is executed without computing it: blocks, conditionals
+     * and loops pass this on to their own statements and the self assignments of numeric local variables
+     * are performed on the frame primitive slots without boxing.</p>
+     * @param node the statement node
+     * @param data the data
+     * @param discard whether the value of the statement is not used
+     * @return the value of the statement, null if discarded
+     */
+    protected Object execute(JexlNode node, Object data, boolean discard) {
+        if (discard) {
+            if (node instanceof ASTBlock) {
+                return executeBlock((ASTBlock) node, data, true);
+            }
+            if (node instanceof ASTIfStatement) {
+                return executeIf((ASTIfStatement) node, data, true);
+            }
+            if (node instanceof ASTWhileStatement) {
+                return executeWhile((ASTWhileStatement) node, data, true);
+            }
+            if (node instanceof ASTForeachStatement) {
+                return executeForeach((ASTForeachStatement) node, data, true);
+            }
+            if (node instanceof ASTSetAddNode) {
+                return executeAssign(node, JexlOperator.SELF_ADD, data, true);
+            }
+            if (node instanceof ASTSetSubNode) {
+                return executeAssign(node, JexlOperator.SELF_SUBTRACT, data, true);
+            }
+            if (node instanceof ASTSetMultNode) {
+                return executeAssign(node, JexlOperator.SELF_MULTIPLY, data, true);
+            }
+        }
+        return accept(node, data);
+    }
+
     @Override
     protected Object visit(ASTReturnStatement node, Object data) {
-        Object val = node.jjtGetChild(0).jjtAccept(this, data);
+        Object val = accept(node.jjtGetChild(0), data);
         cancelCheck(node);
         throw new JexlException.Return(node, null, val);
     }
@@ -638,13 +1500,24 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTForeachStatement node, Object data) {
+        return executeForeach(node, data, false);
+    }
+
+    /**
+     * Executes a foreach loop.
+     * @param node the node
+     * @param data the data
+     * @param discard whether the value of the loop is not used
+     * @return the value of the last executed statement, null if discarded
+     */
+    private Object executeForeach(ASTForeachStatement node, Object data, boolean discard) {
         Object result = null;
         /* first objectNode is the loop variable */
         ASTReference loopReference = (ASTReference) node.jjtGetChild(0);
         ASTIdentifier loopVariable = (ASTIdentifier) loopReference.jjtGetChild(0);
         int symbol = loopVariable.getSymbol();
         /* second objectNode is the variable to iterate */
-        Object iterableValue = node.jjtGetChild(1).jjtAccept(this, data);
+        Object iterableValue = accept(node.jjtGetChild(1), data);
         // make sure there is a value to iterate on and a statement to execute
         if (iterableValue != null && node.jjtGetNumChildren() >= 3) {
             /* third objectNode is the statement to execute */
@@ -668,7 +1541,7 @@ public class Interpreter extends InterpreterBase {
                         }
                         try {
                             // execute statement
-                            result = statement.jjtAccept(this, data);
+                            result = execute(statement, data, discard);
                         } catch (JexlException.Break stmtBreak) {
                             break;
                         } catch (JexlException.Continue stmtContinue) {
@@ -686,15 +1559,26 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTWhileStatement node, Object data) {
+        return executeWhile(node, data, false);
+    }
+
+    /**
+     * Executes a while loop.
+     * @param node the node
+     * @param data the data
+     * @param discard whether the value of the loop is not used
+     * @return the value of the last executed statement, null if discarded
+     */
+    private Object executeWhile(ASTWhileStatement node, Object data, boolean discard) {
         Object result = null;
         /* first objectNode is the expression */
-        Node expressionNode = node.jjtGetChild(0);
-        while (arithmetic.toBoolean(expressionNode.jjtAccept(this, data))) {
+        JexlNode expressionNode = node.jjtGetChild(0);
+        while (arithmetic.toBoolean(accept(expressionNode, data))) {
             cancelCheck(node);
             if (node.jjtGetNumChildren() > 1) {
                 try {
                     // execute statement
-                    result = node.jjtGetChild(1).jjtAccept(this, data);
+                    result = execute(node.jjtGetChild(1), data, discard);
                 } catch (JexlException.Break stmtBreak) {
                     break;
                 } catch (JexlException.Continue stmtContinue) {
@@ -712,46 +1596,34 @@ public class Interpreter extends InterpreterBase {
          * the ex will traverse up to the interpreter. In cases where this is not convenient/possible, JexlException
          * must be caught explicitly and rethrown.
          */
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        try {
-            boolean leftValue = arithmetic.toBoolean(left);
-            if (!leftValue) {
-                return Boolean.FALSE;
+        final int count = node.jjtGetNumChildren();
+        for (int c = 0; c < count; ++c) {
+            JexlNode child = node.jjtGetChild(c);
+            Object value = accept(child, data);
+            try {
+                if (!arithmetic.toBoolean(value)) {
+                    return Boolean.FALSE;
+                }
+            } catch (ArithmeticException xrt) {
+                throw new JexlException(child, "boolean coercion error", xrt);
             }
-        } catch (ArithmeticException xrt) {
-            throw new JexlException(node.jjtGetChild(0), "boolean coercion error", xrt);
-        }
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
-        try {
-            boolean rightValue = arithmetic.toBoolean(right);
-            if (!rightValue) {
-                return Boolean.FALSE;
-            }
-        } catch (ArithmeticException xrt) {
-            throw new JexlException(node.jjtGetChild(1), "boolean coercion error", xrt);
         }
         return Boolean.TRUE;
     }
 
     @Override
     protected Object visit(ASTOrNode node, Object data) {
-        Object left = node.jjtGetChild(0).jjtAccept(this, data);
-        try {
-            boolean leftValue = arithmetic.toBoolean(left);
-            if (leftValue) {
-                return Boolean.TRUE;
-            }
-        } catch (ArithmeticException xrt) {
-            throw new JexlException(node.jjtGetChild(0), "boolean coercion error", xrt);
-        }
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
-        try {
-            boolean rightValue = arithmetic.toBoolean(right);
-            if (rightValue) {
-                return Boolean.TRUE;
+        final int count = node.jjtGetNumChildren();
+        for (int c = 0; c < count; ++c) {
+            JexlNode child = node.jjtGetChild(c);
+            Object value = accept(child, data);
+            try {
+                if (arithmetic.toBoolean(value)) {
+                    return Boolean.TRUE;
+                }
+            } catch (ArithmeticException xrt) {
+                throw new JexlException(child, "boolean coercion error", xrt);
             }
-        } catch (ArithmeticException xrt) {
-            throw new JexlException(node.jjtGetChild(1), "boolean coercion error", xrt);
         }
         return Boolean.FALSE;
     }
@@ -787,8 +1659,57 @@ public class Interpreter extends InterpreterBase {
         return node.getLiteral();
     }
 
+    /**
+     * Gets the shared value of a constant collection literal.
+     * <p>The literal is evaluated once and cached in its node as an immutable collection; literals holding
+     * nested arrays are evaluated each time.</p>
+     * @param node the array, set or map literal node
+     * @param data the data
+     * @return the literal value
+     */
+    private Object literalConstant(JexlNode node, Object data) {
+        Object cached = node.jjtGetValue();
+        if (cached instanceof LiteralConstant) {
+            LiteralConstant constant = (LiteralConstant) cached;
+            return constant.isShared() ? constant.get() : literal(node, data);
+        }
+        final Object literal = literal(node, data);
+        LiteralConstant constant = new LiteralConstant(literal);
+        node.jjtSetValue(constant);
+        return constant.isShared() ? constant.get() : literal;
+    }
+
+    /**
+     * Evaluates a collection literal.
+     * @param node the array, set or map literal node
+     * @param data the data
+     * @return the literal value
+     */
+    private Object literal(JexlNode node, Object data) {
+        if (node instanceof ASTArrayLiteral) {
+            return arrayLiteral((ASTArrayLiteral) node, data);
+        }
+        if (node instanceof ASTSetLiteral) {
+            return setLiteral((ASTSetLiteral) node, data);
+        }
+        return mapLiteral((ASTMapLiteral) node, data);
+    }
+
     @Override
     protected Object visit(ASTArrayLiteral node, Object data) {
+        if (cache && jexl.immutableLiterals && node.isConstant()) {
+            return literalConstant(node, data);
+        }
+        return arrayLiteral(node, data);
+    }
+
+    /**
+     * Evaluates an array literal.
+     * @param node the literal node
+     * @param data the data
+     * @return the array
+     */
+    private Object arrayLiteral(ASTArrayLiteral node, Object data) {
         int childCount = node.jjtGetNumChildren();
         JexlArithmetic.ArrayBuilder ab = arithmetic.arrayBuilder(childCount);
         boolean extended = false;
@@ -798,7 +1719,7 @@ public class Interpreter extends InterpreterBase {
             if (child instanceof ASTExtendedLiteral) {
                 extended = true;
             } else {
-                Object entry = node.jjtGetChild(i).jjtAccept(this, data);
+                Object entry = accept(node.jjtGetChild(i), data);
                 ab.add(entry);
             }
         }
@@ -812,11 +1733,24 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTSetLiteral node, Object data) {
+        if (cache && jexl.immutableLiterals && node.isConstant()) {
+            return literalConstant(node, data);
+        }
+        return setLiteral(node, data);
+    }
+
+    /**
+     * Evaluates a set literal.
+     * @param node the literal node
+     * @param data the data
+     * @return the set
+     */
+    private Object setLiteral(ASTSetLiteral node, Object data) {
         int childCount = node.jjtGetNumChildren();
         JexlArithmetic.SetBuilder mb = arithmetic.setBuilder(childCount);
         for (int i = 0; i < childCount; i++) {
             cancelCheck(node);
-            Object entry = node.jjtGetChild(i).jjtAccept(this, data);
+            Object entry = accept(node.jjtGetChild(i), data);
             mb.add(entry);
         }
         return mb.create();
@@ -824,11 +1758,24 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTMapLiteral node, Object data) {
+        if (cache && jexl.immutableLiterals && node.isConstant()) {
+            return literalConstant(node, data);
+        }
+        return mapLiteral(node, data);
+    }
+
+    /**
+     * Evaluates a map literal.
+     * @param node the literal node
+     * @param data the data
+     * @return the map
+     */
+    private Object mapLiteral(ASTMapLiteral node, Object data) {
         int childCount = node.jjtGetNumChildren();
         JexlArithmetic.MapBuilder mb = arithmetic.mapBuilder(childCount);
         for (int i = 0; i < childCount; i++) {
             cancelCheck(node);
-            Object[] entry = (Object[]) (node.jjtGetChild(i)).jjtAccept(this, data);
+            Object[] entry = (Object[]) accept(node.jjtGetChild(i), data);
             mb.put(entry[0], entry[1]);
         }
         return mb.create();
@@ -836,38 +1783,43 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTMapEntry node, Object data) {
-        Object key = node.jjtGetChild(0).jjtAccept(this, data);
-        Object value = node.jjtGetChild(1).jjtAccept(this, data);
+        Object key = accept(node.jjtGetChild(0), data);
+        Object value = accept(node.jjtGetChild(1), data);
         return new Object[]{key, value};
     }
 
     @Override
     protected Object visit(ASTTernaryNode node, Object data) {
-        Object condition = node.jjtGetChild(0).jjtAccept(this, data);
+        Object condition = accept(node.jjtGetChild(0), data);
         if (node.jjtGetNumChildren() == 3) {
-            if (condition != null && arithmetic.toBoolean(condition)) {
-                return node.jjtGetChild(1).jjtAccept(this, data);
-            } else {
-                return node.jjtGetChild(2).jjtAccept(this, data);
+            // chained conditionals (a ? x : b ? y : z) are walked iteratively
+            JexlNode ternary = node;
+            while (true) {
+                JexlNode branch = ternary.jjtGetChild(condition != null && arithmetic.toBoolean(condition) ? 1 : 2);
+                if (!(branch instanceof ASTTernaryNode) || branch.jjtGetNumChildren() != 3) {
+                    return accept(branch, data);
+                }
+                ternary = branch;
+                condition = accept(ternary.jjtGetChild(0), data);
             }
         }
         if (condition != null && arithmetic.toBoolean(condition)) {
             return condition;
         } else {
-            return node.jjtGetChild(1).jjtAccept(this, data);
+            return accept(node.jjtGetChild(1), data);
         }
     }
 
     @Override
     protected Object visit(ASTNullpNode node, Object data) {
-        Object lhs = node.jjtGetChild(0).jjtAccept(this, data);
-        return lhs != null? lhs : node.jjtGetChild(1).jjtAccept(this, data);
+        Object lhs = accept(node.jjtGetChild(0), data);
+        return lhs != null? lhs : accept(node.jjtGetChild(1), data);
     }
 
     @Override
     protected Object visit(ASTSizeFunction node, Object data) {
         try {
-            Object val = node.jjtGetChild(0).jjtAccept(this, data);
+            Object val = accept(node.jjtGetChild(0), data);
             return operators.size(node, val);
         } catch(JexlException xany) {
             return 0;
@@ -876,14 +1828,14 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTSizeMethod node, Object data) {
-        Object val = node.jjtGetChild(0).jjtAccept(this, data);
+        Object val = accept(node.jjtGetChild(0), data);
         return operators.size(node, val);
     }
 
     @Override
     protected Object visit(ASTEmptyFunction node, Object data) {
         try {
-            Object value = node.jjtGetChild(0).jjtAccept(this, data);
+            Object value = accept(node.jjtGetChild(0), data);
             return operators.empty(node, value);
         } catch(JexlException xany) {
             return true;
@@ -892,7 +1844,7 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTEmptyMethod node, Object data) {
-        Object val = node.jjtGetChild(0).jjtAccept(this, data);
+        Object val = accept(node.jjtGetChild(0), data);
         return operators.empty(node, val);
     }
 
@@ -905,7 +1857,7 @@ public class Interpreter extends InterpreterBase {
             Object result = null;
             for (int i = 0; i < numChildren; i++) {
                 JexlNode child = node.jjtGetChild(i);
-                result = child.jjtAccept(this, data);
+                result = execute(child, data, i < numChildren - 1);
                 cancelCheck(child);
             }
             return result;
@@ -919,7 +1871,7 @@ public class Interpreter extends InterpreterBase {
 
     @Override
     protected Object visit(ASTReferenceExpression node, Object data) {
-        return node.jjtGetChild(0).jjtAccept(this, data);
+        return accept(node.jjtGetChild(0), data);
     }
 
     @Override
@@ -955,7 +1907,7 @@ public class Interpreter extends InterpreterBase {
             if (object == null) {
                 return null;
             }
-            Object index = nindex.jjtAccept(this, null);
+            Object index = accept(nindex, null);
             cancelCheck(node);
             object = getAttribute(object, index, nindex);
         }
@@ -1053,7 +2005,7 @@ public class Interpreter extends InterpreterBase {
                 }
             }
             // attempt to evaluate the property within the object (visit(ASTIdentifierAccess node))
-            object = objectNode.jjtAccept(this, object);
+            object = accept(objectNode, object);
             cancelCheck(node);
             if (object != null) {
                 // disallow mixing antish variable & bean with same root; avoid ambiguity
@@ -1159,12 +2111,24 @@ public class Interpreter extends InterpreterBase {
      * @param data     the data
      * @return the left hand side
      */
-    protected Object executeAssign(JexlNode node, JexlOperator assignop, Object data) { // CSOFF: MethodLength
+    protected Object executeAssign(JexlNode node, JexlOperator assignop, Object data) {
+        return executeAssign(node, assignop, data, false);
+    }
+
+    /**
+     * Executes an assignment with an optional side-effect operator.
+     * @param node     the node
+     * @param assignop the assignment operator or null if simply assignment
+     * @param data     the data
+     * @param discard  whether the value of the assignment is not used
+     * @return the left hand side, may be null if discarded
+     */
+    private Object executeAssign(JexlNode node, JexlOperator assignop, Object data, boolean discard) { // CSOFF: MethodLength
         cancelCheck(node);
         // left contains the reference to assign to
         final JexlNode left = node.jjtGetChild(0);
         // right is the value expression to assign
-        Object right = node.jjtGetChild(1).jjtAccept(this, data);
+        Object right = accept(node.jjtGetChild(1), data);
         Object object = null;
         int symbol = -1;
         boolean antish = true;
@@ -1177,6 +2141,10 @@ public class Interpreter extends InterpreterBase {
                 // check we are not assigning a symbol itself
                 if (last < 0) {
                     if (assignop != null) {
+                        if (assignPrimitive(symbol, assignop, right)) {
+                            // only box the primitive value if it is used
+                            return discard ? null : frame.get(symbol);
+                        }
                         Object self = frame.get(symbol);
                         right = operators.tryAssignOverload(node, assignop, self, right);
                         if (right == JexlOperator.ASSIGN) {
@@ -1226,7 +2194,7 @@ public class Interpreter extends InterpreterBase {
         // start at 1 if symbol
         for (int c = symbol >= 0 ? 1 : 0; c < last; ++c) {
             objectNode = left.jjtGetChild(c);
-            object = objectNode.jjtAccept(this, object);
+            object = accept(objectNode, object);
             if (object != null) {
                 // disallow mixing antish variable & bean with same root; avoid ambiguity
                 antish = false;
@@ -1283,11 +2251,11 @@ public class Interpreter extends InterpreterBase {
             int numChildren = propertyNode.jjtGetNumChildren() - 1;
             for (int i = 0; i < numChildren; i++) {
                 JexlNode nindex = propertyNode.jjtGetChild(i);
-                Object index = nindex.jjtAccept(this, null);
+                Object index = accept(nindex, null);
                 object = getAttribute(object, index, nindex);
             }
             propertyNode = propertyNode.jjtGetChild(numChildren);
-            property = propertyNode.jjtAccept(this, null);
+            property = accept(propertyNode, null);
         } else {
             throw new JexlException(objectNode, "illegal assignment form");
         }
@@ -1316,7 +2284,7 @@ public class Interpreter extends InterpreterBase {
         final int argc = node.jjtGetNumChildren();
         final Object[] argv = new Object[argc];
         for (int i = 0; i < argc; i++) {
-            argv[i] = node.jjtGetChild(i).jjtAccept(this, data);
+            argv[i] = accept(node.jjtGetChild(i), data);
         }
         return argv;
     }
@@ -1351,7 +2319,7 @@ public class Interpreter extends InterpreterBase {
                 method = object;
             }
         } else {
-            method = methodNode.jjtAccept(this, data);
+            method = accept(methodNode, data);
         }
         Object result = method;
         for (int a = 1; a < node.jjtGetNumChildren(); ++a) {
@@ -1603,9 +2571,11 @@ public class Interpreter extends InterpreterBase {
                     if (cached instanceof Funcall) {
                         Object eval = ((Funcall) cached).tryInvoke(this, methodName, target, argv);
                         if (JexlEngine.TRY_FAILED != eval) {
+                            cacheHit(node);
                             return eval;
                         }
                     }
+                    cacheMiss(node);
                 }
             } else {
                 // if no name, we should not cache
@@ -1651,6 +2621,12 @@ public class Interpreter extends InterpreterBase {
                 // or when a var/symbol or antish var is used as a "function" name
                 if (functor != null) {
                     // lambda, script or jexl method will do
+                    if (functor instanceof Closure && isInlineCallable((Closure) functor)) {
+                        if (functor == callee && callee.isTailCall(node)) {
+                            return new TailCall(argv);
+                        }
+                        return call(node, (Closure) functor, argv);
+                    }
                     if (functor instanceof JexlScript) {
                         return ((JexlScript) functor).execute(context, argv);
                     }
@@ -1721,12 +2697,12 @@ public class Interpreter extends InterpreterBase {
             throw new JexlException.Cancel(node);
         }
         // first child is class or class name
-        final Object target = node.jjtGetChild(0).jjtAccept(this, data);
+        final Object target = accept(node.jjtGetChild(0), data);
         // get the ctor args
         int argc = node.jjtGetNumChildren() - 1;
         Object[] argv = new Object[argc];
         for (int i = 0; i < argc; i++) {
-            argv[i] = node.jjtGetChild(i + 1).jjtAccept(this, data);
+            argv[i] = accept(node.jjtGetChild(i + 1), data);
         }
 
         try {
@@ -1737,9 +2713,11 @@ public class Interpreter extends InterpreterBase {
                 if (cached instanceof Funcall) {
                     Object eval = ((Funcall) cached).tryInvoke(this, null, target, argv);
                     if (JexlEngine.TRY_FAILED != eval) {
+                        cacheHit(node);
                         return eval;
                     }
                 }
+                cacheMiss(node);
             }
             boolean narrow = false;
             JexlMethod ctor = null;
@@ -1830,9 +2808,11 @@ public class Interpreter extends InterpreterBase {
                     JexlPropertyGet vg = (JexlPropertyGet) cached;
                     Object value = vg.tryInvoke(object, attribute);
                     if (!vg.tryFailed(value)) {
+                        cacheHit(node);
                         return value;
                     }
                 }
+                cacheMiss(node);
             }
             // resolve that property
             List<PropertyResolver> resolvers = uberspect.getResolvers(operator, object);
@@ -1902,9 +2882,11 @@ public class Interpreter extends InterpreterBase {
                     JexlPropertySet setter = (JexlPropertySet) cached;
                     Object eval = setter.tryInvoke(object, attribute, value);
                     if (!setter.tryFailed(eval)) {
+                        cacheHit(node);
                         return;
                     }
                 }
+                cacheMiss(node);
             }
             List<PropertyResolver> resolvers = uberspect.getResolvers(operator, object);
             JexlPropertySet vs = uberspect.getPropertySet(resolvers, object, attribute, value);
@@ -1986,13 +2968,13 @@ public class Interpreter extends InterpreterBase {
                     );
                 }
                 Interpreter ii = new Interpreter(Interpreter.this, jexla);
-                Object r = block.jjtAccept(ii, data);
+                Object r = ii.accept(block, data);
                 if (ii.isCancelled()) {
                     Interpreter.this.cancel();
                 }
                 return r;
             } else {
-                return block.jjtAccept(Interpreter.this, data);
+                return accept(block, data);
             }
         }
         // tracking whether we processed the annotation
@@ -21,6 +21,7 @@ import org.apache.commons.jexl3.JexlArithmetic;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlListener;
 import org.apache.commons.jexl3.JexlOperator;
 import org.apache.commons.jexl3.introspection.JexlMethod;
 import org.apache.commons.jexl3.introspection.JexlUberspect;
@@ -61,7 +62,7 @@ public abstract class InterpreterBase extends ParserVisitor {
         this.uberspect = jexl.uberspect;
         this.context = aContext != null ? aContext : Engine.EMPTY_CONTEXT;
         JexlArithmetic jexla = jexl.arithmetic;
-        this.arithmetic = jexla.options(context);
+        this.arithmetic = jexl.getArithmetic(context);
         if (arithmetic != jexla && !arithmetic.getClass().equals(jexla.getClass())) {
             logger.warn("expected arithmetic to be " + jexla.getClass().getSimpleName()
                           + ", got " + arithmetic.getClass().getSimpleName()
@@ -177,6 +178,67 @@ public abstract class InterpreterBase extends ParserVisitor {
         return node;
     }
 
+    /**
+     * A variable error thrown in silent mode.
+     * <p>It is caught and logged by the interpreter and never escapes it; capturing its stack trace would be
+     * wasted.</p>
+     */
+    private static final class SilentVariable extends JexlException.Variable {
+        /**
+         * Creates an instance.
+         * @param node  the offending node
+         * @param var   the variable name
+         * @param undef whether the variable is undefined or evaluated as null
+         */
+        SilentVariable(JexlNode node, String var, boolean undef) {
+            super(node, var, undef);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * A property error thrown in silent mode.
+     */
+    private static final class SilentProperty extends JexlException.Property {
+        /**
+         * Creates an instance.
+         * @param node  the offending node
+         * @param var   the property name
+         * @param cause the cause if any
+         */
+        SilentProperty(JexlNode node, String var, Throwable cause) {
+            super(node, var, cause);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+    /**
+     * A method error thrown in silent mode.
+     */
+    private static final class SilentMethod extends JexlException.Method {
+        /**
+         * Creates an instance.
+         * @param node   the offending node
+         * @param method the method name
+         */
+        SilentMethod(JexlNode node, String method) {
+            super(node, method);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
     /**
      * Triggered when a variable can not be resolved.
      * @param node  the node where the error originated from
@@ -186,7 +248,9 @@ public abstract class InterpreterBase extends ParserVisitor {
      */
     protected Object unsolvableVariable(JexlNode node, String var, boolean undef) {
         if (isStrictEngine() && (undef || arithmetic.isStrict())) {
-            throw new JexlException.Variable(node, var, undef);
+            throw isSilent()
+                  ? new SilentVariable(node, var, undef)
+                  : new JexlException.Variable(node, var, undef);
         } else if (logger.isDebugEnabled()) {
             logger.debug(JexlException.variableError(node, var, undef));
         }
@@ -200,8 +264,13 @@ public abstract class InterpreterBase extends ParserVisitor {
      * @return throws JexlException if strict and not silent, null otherwise
      */
     protected Object unsolvableMethod(JexlNode node, String method) {
+        if (jexl.listener != null) {
+            jexl.listenNode(JexlListener.Type.METHOD_FAILURE, node, null, method);
+        }
         if (isStrictEngine()) {
-            throw new JexlException.Method(node, method);
+            throw isSilent()
+                  ? new SilentMethod(node, method)
+                  : new JexlException.Method(node, method);
         } else if (logger.isDebugEnabled()) {
             logger.debug(JexlException.methodError(node, method));
         }
@@ -217,7 +286,9 @@ public abstract class InterpreterBase extends ParserVisitor {
      */
     protected Object unsolvableProperty(JexlNode node, String var, Throwable cause) {
         if (isStrictEngine()) {
-            throw new JexlException.Property(node, var, cause);
+            throw isSilent()
+                  ? new SilentProperty(node, var, cause)
+                  : new JexlException.Property(node, var, cause);
         } else if (logger.isDebugEnabled()) {
             logger.debug(JexlException.propertyError(node, var), cause);
         }
@@ -299,4 +370,23 @@ public abstract class InterpreterBase extends ParserVisitor {
             throw new JexlException.Cancel(node);
         }
     }
+
+    /**
+     * Called when the executor cached in a node was reused.
+     * <p>Does nothing by default, instrumenting interpreters may override it.</p>
+     * @param node the node
+     */
+    protected void cacheHit(JexlNode node) {
+    }
+
+    /**
+     * Called when the executor of a node had to be resolved, the cached one being absent or unusable.
+     * <p>Notifies the engine listener if any, instrumenting interpreters may override it.</p>
+     * @param node the node
+     */
+    protected void cacheMiss(JexlNode node) {
+        if (jexl.listener != null) {
+            jexl.listenNode(JexlListener.Type.CACHE_MISS, node, null, null);
+        }
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlInfo;
+import org.apache.commons.jexl3.JexlListener;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.parser.JexlNode;
+
+/**
+ * The mutable event passed to listeners, one instance being reused per engine and thread.
+ * <p>A listener re-entering the engine gets a new instance, the reused one being in use.</p>
+ */
+final class ListenerEvent implements JexlListener.Event {
+    /** The type. */
+    private JexlListener.Type type = null;
+    /** The script. */
+    private JexlScript script = null;
+    /** The source. */
+    private String source = null;
+    /** The info. */
+    private JexlInfo info = null;
+    /** The node the info is derived from. */
+    private JexlNode node = null;
+    /** The name. */
+    private String name = null;
+    /** The cache flag. */
+    private boolean cached = false;
+    /** The result. */
+    private Object result = null;
+    /** The error. */
+    private Throwable error = null;
+    /** The duration. */
+    private long duration = 0L;
+    /** Whether this event is being passed to the listener. */
+    private boolean listening = false;
+
+    /**
+     * Checks whether this event is being passed to the listener.
+     * @return true if the listener is being called with this event
+     */
+    boolean isListening() {
+        return listening;
+    }
+
+    /**
+     * Marks this event as being passed to the listener or not.
+     * @param flag whether the listener is being called with this event
+     */
+    void setListening(boolean flag) {
+        listening = flag;
+    }
+
+    /**
+     * Resets this event.
+     * @param etype the new event type
+     * @return this event
+     */
+    ListenerEvent reset(JexlListener.Type etype) {
+        type = etype;
+        script = null;
+        source = null;
+        info = null;
+        node = null;
+        name = null;
+        cached = false;
+        result = null;
+        error = null;
+        duration = 0L;
+        return this;
+    }
+
+    /**
+     * Sets the script or source.
+     * @param escript the script
+     * @param esource the source
+     * @param einfo   the info
+     * @return this event
+     */
+    ListenerEvent script(JexlScript escript, String esource, JexlInfo einfo) {
+        script = escript;
+        source = esource;
+        info = einfo;
+        return this;
+    }
+
+    /**
+     * Sets the node and name.
+     * @param enode the node
+     * @param ename the name
+     * @return this event
+     */
+    ListenerEvent node(JexlNode enode, String ename) {
+        node = enode;
+        name = ename;
+        return this;
+    }
+
+    /**
+     * Sets the outcome.
+     * @param ecached   whether the script was found in the cache
+     * @param eresult   the result
+     * @param eerror    the error
+     * @param eduration the duration
+     * @return this event
+     */
+    ListenerEvent outcome(boolean ecached, Object eresult, Throwable eerror, long eduration) {
+        cached = ecached;
+        result = eresult;
+        error = eerror;
+        duration = eduration;
+        return this;
+    }
+
+    @Override
+    public JexlListener.Type getType() {
+        return type;
+    }
+
+    @Override
+    public JexlScript getScript() {
+        return script;
+    }
+
+    @Override
+    public String getSource() {
+        return source == null && script != null ? script.getSourceText() : source;
+    }
+
+    @Override
+    public JexlInfo getInfo() {
+        if (info == null && node != null) {
+            info = node.jexlInfo();
+        }
+        return info;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean isCached() {
+        return cached;
+    }
+
+    @Override
+    public Object getResult() {
+        return result;
+    }
+
+    @Override
+    public Throwable getError() {
+        return error;
+    }
+
+    @Override
+    public long getDuration() {
+        return duration;
+    }
+
+    @Override
+    public String toString() {
+        return type + (name != null ? " " + name : "");
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import java.lang.reflect.Array;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The shared value of a constant collection literal, cached in its node.
+ * <p>
+ * Sets and maps are stored as immutable collections, small ones being backed by arrays;
+ * arrays can not be made immutable and are thus copied on each access. Since copies are shallow,
+ * literals holding nested arrays are not shared.
+ * </p>
+ * @since 3.2
+ */
+final class LiteralConstant {
+    /** The maximum number of elements of array-backed collections. */
+    private static final int COMPACT_SIZE = 8;
+    /** The shared value, null if the literal can not be shared. */
+    private final Object value;
+
+    /**
+     * Creates a literal constant.
+     * @param literal the evaluated literal
+     */
+    LiteralConstant(Object literal) {
+        value = holdsArray(literal, false) ? null : immutable(literal);
+    }
+
+    /**
+     * Checks whether a value is or holds an array.
+     * @param literal the value
+     * @param nested whether the value is itself an array
+     * @return true if the value holds an array, false otherwise
+     */
+    private static boolean holdsArray(Object literal, boolean nested) {
+        if (literal == null) {
+            return false;
+        }
+        if (literal.getClass().isArray()) {
+            if (nested) {
+                return true;
+            }
+            if (literal instanceof Object[]) {
+                for (Object element : (Object[]) literal) {
+                    if (holdsArray(element, true)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+        if (literal instanceof Map<?, ?>) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) literal).entrySet()) {
+                if (holdsArray(entry.getKey(), true) || holdsArray(entry.getValue(), true)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (literal instanceof Collection<?>) {
+            for (Object element : (Collection<?>) literal) {
+                if (holdsArray(element, true)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the literal value is shared.
+     * @return true if shared, false if the literal must be evaluated each time
+     */
+    boolean isShared() {
+        return value != null;
+    }
+
+    /**
+     * Gets the literal value.
+     * @return the shared collection or a copy of the array
+     */
+    Object get() {
+        if (value instanceof Object[]) {
+            return ((Object[]) value).clone();
+        }
+        if (value != null && value.getClass().isArray()) {
+            final int length = Array.getLength(value);
+            Object copy = Array.newInstance(value.getClass().getComponentType(), length);
+            System.arraycopy(value, 0, copy, 0, length);
+            return copy;
+        }
+        return value;
+    }
+
+    /**
+     * Makes a literal collection immutable.
+     * @param literal the literal
+     * @return the immutable version
+     */
+    @SuppressWarnings("unchecked")
+    private static Object immutable(Object literal) {
+        if (literal instanceof HashMap<?, ?> && HashMap.class == literal.getClass()) {
+            Map<Object, Object> map = (Map<Object, Object>) literal;
+            return map.size() <= COMPACT_SIZE ? new CompactMap(map) : Collections.unmodifiableMap(map);
+        }
+        if (literal instanceof Map<?, ?>) {
+            return Collections.unmodifiableMap((Map<Object, Object>) literal);
+        }
+        if (literal instanceof HashSet<?> && HashSet.class == literal.getClass()) {
+            Set<Object> set = (Set<Object>) literal;
+            return set.size() <= COMPACT_SIZE ? new CompactSet(set) : Collections.unmodifiableSet(set);
+        }
+        if (literal instanceof Set<?>) {
+            return Collections.unmodifiableSet((Set<Object>) literal);
+        }
+        if (literal instanceof List<?>) {
+            return Collections.unmodifiableList((List<Object>) literal);
+        }
+        return literal;
+    }
+
+    /**
+     * Compares objects for equality, handling nulls.
+     * @param lhs left hand side
+     * @param rhs right hand side
+     * @return true if equal
+     */
+    private static boolean same(Object lhs, Object rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    /**
+     * An immutable iterator over an array.
+     */
+    private static class ArrayIterator implements Iterator<Object> {
+        /** The elements. */
+        private final Object[] elements;
+        /** The current position. */
+        private int index = 0;
+
+        /**
+         * Creates an iterator.
+         * @param array the elements
+         */
+        ArrayIterator(Object[] array) {
+            elements = array;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < elements.length;
+        }
+
+        @Override
+        public Object next() {
+            if (index >= elements.length) {
+                throw new NoSuchElementException();
+            }
+            return elements[index++];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * An immutable set stored as an array.
+     */
+    private static final class CompactSet extends AbstractSet<Object> {
+        /** The elements. */
+        private final Object[] elements;
+
+        /**
+         * Creates a set.
+         * @param set the source set
+         */
+        CompactSet(Set<Object> set) {
+            elements = set.toArray();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            for (Object element : elements) {
+                if (same(element, o)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new ArrayIterator(elements);
+        }
+
+        @Override
+        public int size() {
+            return elements.length;
+        }
+    }
+
+    /**
+     * An immutable map stored as arrays of keys and values.
+     */
+    private static final class CompactMap extends AbstractMap<Object, Object> {
+        /** The keys. */
+        private final Object[] keys;
+        /** The values. */
+        private final Object[] values;
+
+        /**
+         * Creates a map.
+         * @param map the source map
+         */
+        CompactMap(Map<Object, Object> map) {
+            final int size = map.size();
+            keys = new Object[size];
+            values = new Object[size];
+            int i = 0;
+            for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                keys[i] = entry.getKey();
+                values[i] = entry.getValue();
+                i += 1;
+            }
+        }
+
+        /**
+         * Finds the index of a key.
+         * @param key the key
+         * @return the index or -1 if not found
+         */
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; ++i) {
+                if (same(keys[i], key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public Object get(Object key) {
+            final int i = indexOf(key);
+            return i >= 0 ? values[i] : null;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Set<Map.Entry<Object, Object>> entrySet() {
+            return new AbstractSet<Map.Entry<Object, Object>>() {
+                @Override
+                public Iterator<Map.Entry<Object, Object>> iterator() {
+                    return new Iterator<Map.Entry<Object, Object>>() {
+                        /** The current position. */
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keys.length;
+                        }
+
+                        @Override
+                        public Map.Entry<Object, Object> next() {
+                            if (index >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            Map.Entry<Object, Object> entry =
+                                new AbstractMap.SimpleImmutableEntry<Object, Object>(keys[index], values[index]);
+                            index += 1;
+                            return entry;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+            };
+        }
+    }
+}
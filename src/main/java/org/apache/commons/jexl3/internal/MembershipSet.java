@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An immutable hashed set used as the constant container operand of =~ and !~.
+ * <p>
+ * Membership follows the semantics the operators have with the base arithmetic when the container is
+ * evaluated: members are compared using their equals/hashCode and a collection value matches a collection
+ * container if all its elements are members, an array container only matching single elements.
+ * </p>
+ * @since 3.2
+ */
+final class MembershipSet {
+    /** The members. */
+    private final Set<Object> members;
+    /** Whether the container is an array. */
+    private final boolean array;
+
+    /**
+     * Creates a membership set from an array or a collection.
+     * @param values the array or collection
+     */
+    MembershipSet(Object values) {
+        if (values instanceof Collection<?>) {
+            members = new HashSet<Object>((Collection<?>) values);
+            array = false;
+        } else {
+            final int size = Array.getLength(values);
+            members = new HashSet<Object>(size * 2);
+            for (int i = 0; i < size; ++i) {
+                members.add(Array.get(values, i));
+            }
+            array = true;
+        }
+    }
+
+    /**
+     * Checks whether a value matches this set.
+     * @param value the value
+     * @return true if the value is a member, false otherwise
+     */
+    boolean matches(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (!array && value instanceof Collection<?>) {
+            return members.containsAll((Collection<?>) value);
+        }
+        return members.contains(value);
+    }
+}
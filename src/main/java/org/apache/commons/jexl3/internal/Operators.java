@@ -39,10 +39,8 @@ public class Operators {
      * @param owner the owning interpreter
      */
     protected Operators(Interpreter owner) {
-        final JexlArithmetic arithmetic = owner.arithmetic;
-        final JexlUberspect uberspect = owner.uberspect;
         this.interpreter = owner;
-        this.operators = uberspect.getArithmetic(arithmetic);
+        this.operators = owner.jexl.getArithmeticOperators(owner.arithmetic);
     }
 
     /**
@@ -78,9 +76,11 @@ public class Operators {
                         JexlMethod me = (JexlMethod) cached;
                         Object eval = me.tryInvoke(operator.getMethodName(), arithmetic, args);
                         if (!me.tryFailed(eval)) {
+                            interpreter.cacheHit(node);
                             return eval;
                         }
                     }
+                    interpreter.cacheMiss(node);
                 }
                 JexlMethod vm = operators.getOperator(operator, args);
                 if (vm != null) {
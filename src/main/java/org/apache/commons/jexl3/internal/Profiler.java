@@ -0,0 +1,307 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlInfo;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.parser.ASTJexlLambda;
+import org.apache.commons.jexl3.parser.JexlNode;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Profiles script executions.
+ * <p>
+ * Scripts executed through a profiler are interpreted by an instrumented interpreter that records, per node,
+ * the number of evaluations, their inclusive time, the reuse (hits) or resolution (misses) of the executors
+ * cached in nodes and the number of errors. Scripts executed otherwise are not instrumented and incur no cost.</p>
+ * <p>
+ * The time is measured on one evaluation out of a sampling rate, the inclusive time of a node being
+ * extrapolated from these samples. Operators evaluated as primitives (in conditions or primitive evaluations)
+ * do not go through the visitor and are accounted for in their enclosing node.</p>
+ * <p>
+ * The report maps statistics back to source lines and renders nodes through the {@link Debugger}.</p>
+ */
+public class Profiler {
+    /** The sampling rate. */
+    private final int sampling;
+    /** The statistics per node. */
+    private final ConcurrentMap<JexlNode, Statistics> statistics = new ConcurrentHashMap<JexlNode, Statistics>();
+
+    /**
+     * The statistics of a node.
+     */
+    public static final class Statistics {
+        /** The number of evaluations. */
+        private long count = 0;
+        /** The number of timed evaluations. */
+        private long sampled = 0;
+        /** The cumulated time of timed evaluations. */
+        private long nanos = 0;
+        /** The number of cached executor hits. */
+        private long hits = 0;
+        /** The number of cached executor misses. */
+        private long misses = 0;
+        /** The number of errors. */
+        private long errors = 0;
+
+        /**
+         * @return the number of evaluations
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the estimated inclusive time of all evaluations in nanoseconds
+         */
+        public synchronized long getTime() {
+            return sampled > 0 ? (long) ((double) nanos * count / sampled) : 0L;
+        }
+
+        /**
+         * @return the number of times the executor cached in the node was reused
+         */
+        public synchronized long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return the number of times the executor of the node had to be resolved
+         */
+        public synchronized long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return the number of errors raised by the node
+         */
+        public synchronized long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Counts an evaluation.
+         * @param rate the sampling rate
+         * @return true if this evaluation should be timed
+         */
+        synchronized boolean enter(int rate) {
+            return count++ % rate == 0;
+        }
+
+        /**
+         * Adds a timed evaluation.
+         * @param time the evaluation time in nanoseconds
+         */
+        synchronized void time(long time) {
+            sampled += 1;
+            nanos += time;
+        }
+
+        /** Counts a hit. */
+        synchronized void hit() {
+            hits += 1;
+        }
+
+        /** Counts a miss. */
+        synchronized void miss() {
+            misses += 1;
+        }
+
+        /** Counts an error. */
+        synchronized void error() {
+            errors += 1;
+        }
+    }
+
+    /**
+     * Creates a profiler timing every evaluation.
+     */
+    public Profiler() {
+        this(1);
+    }
+
+    /**
+     * Creates a profiler.
+     * @param rate the sampling rate, one evaluation out of rate is timed
+     */
+    public Profiler(int rate) {
+        sampling = rate < 1 ? 1 : rate;
+    }
+
+    /**
+     * Executes a script with profiling.
+     * @param script the script, created by a JEXL engine
+     * @param context the context
+     * @param args the script arguments
+     * @return the script result
+     */
+    public Object execute(JexlScript script, JexlContext context, Object... args) {
+        if (!(script instanceof Script)) {
+            throw new IllegalArgumentException("unable to profile script " + script);
+        }
+        Script jscript = (Script) script;
+        jscript.checkCacheVersion();
+        Scope.Frame frame = jscript.createFrame(args != null && args.length > 0 ? args : null);
+        Interpreter interpreter = new ProfilingInterpreter(jscript.jexl, context, frame, this);
+        // a lambda script evaluates its body, not the closure it would create
+        JexlNode root = jscript.script instanceof ASTJexlLambda
+                ? jscript.script.jjtGetChild(jscript.script.jjtGetNumChildren() - 1)
+                : jscript.script;
+        return interpreter.interpret(root);
+    }
+
+    /**
+     * Gets the statistics of a node, creating them if needed.
+     * @param node the node
+     * @return the statistics
+     */
+    private Statistics statistics(JexlNode node) {
+        Statistics stats = statistics.get(node);
+        if (stats == null) {
+            stats = new Statistics();
+            Statistics other = statistics.putIfAbsent(node, stats);
+            if (other != null) {
+                stats = other;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Gets the statistics of a node.
+     * @param node the node
+     * @return the statistics or null if the node was never profiled
+     */
+    public Statistics getStatistics(JexlNode node) {
+        return statistics.get(node);
+    }
+
+    /**
+     * Clears all statistics.
+     */
+    public void clear() {
+        statistics.clear();
+    }
+
+    /**
+     * Called when a node evaluation starts.
+     * @param node the node
+     * @return the start time or Long.MIN_VALUE if the evaluation is not timed
+     */
+    long enter(JexlNode node) {
+        return statistics(node).enter(sampling) ? System.nanoTime() : Long.MIN_VALUE;
+    }
+
+    /**
+     * Called when a node evaluation ends.
+     * @param node the node
+     * @param start the start time
+     */
+    void exit(JexlNode node, long start) {
+        if (start != Long.MIN_VALUE) {
+            statistics(node).time(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Called when a node evaluation raised an error.
+     * @param node the node
+     * @param xany the error
+     */
+    void error(JexlNode node, RuntimeException xany) {
+        if (!(xany instanceof JexlException.Return
+              || xany instanceof JexlException.Break
+              || xany instanceof JexlException.Continue)) {
+            statistics(node).error();
+        }
+    }
+
+    /**
+     * Called when a node reused its cached executor.
+     * @param node the node
+     */
+    void hit(JexlNode node) {
+        statistics(node).hit();
+    }
+
+    /**
+     * Called when a node resolved its executor.
+     * @param node the node
+     */
+    void miss(JexlNode node) {
+        statistics(node).miss();
+    }
+
+    /**
+     * Reports the statistics of a script.
+     * <p>Each profiled node is reported on a line, in source order, with its line, column, evaluation count,
+     * inclusive time in microseconds, cache hits and misses, errors and its source text.</p>
+     * @param script the script
+     * @return the report
+     */
+    public String report(JexlScript script) {
+        StringBuilder strb = new StringBuilder();
+        strb.append(String.format("%5s %4s %10s %12s %8s %8s %6s  %s%n",
+                "line", "col", "count", "time(us)", "hits", "misses", "errors", "source"));
+        if (script instanceof Script) {
+            report(strb, new Debugger(), ((Script) script).script, 0);
+        }
+        return strb.toString();
+    }
+
+    /**
+     * Reports the statistics of a node and its descendants.
+     * @param strb the report builder
+     * @param debugger the debugger rendering nodes
+     * @param node the node
+     * @param depth the depth of the node among reported nodes
+     */
+    private void report(StringBuilder strb, Debugger debugger, JexlNode node, int depth) {
+        Statistics stats = statistics.get(node);
+        int next = depth;
+        if (stats != null) {
+            JexlInfo info = node.jexlInfo();
+            String text = debugger.data(node);
+            int eol = text.indexOf('\n');
+            if (eol >= 0) {
+                text = text.substring(0, eol) + " ...";
+            }
+            StringBuilder indent = new StringBuilder();
+            for (int i = 0; i < depth; ++i) {
+                indent.append("  ");
+            }
+            strb.append(String.format("%5d %4d %10d %12.3f %8d %8d %6d  %s%s%n",
+                    info != null ? info.getLine() : 0,
+                    info != null ? info.getColumn() : 0,
+                    stats.getCount(),
+                    stats.getTime() / 1000.d,
+                    stats.getHits(),
+                    stats.getMisses(),
+                    stats.getErrors(),
+                    indent,
+                    text));
+            next += 1;
+        }
+        for (int c = 0; c < node.jjtGetNumChildren(); ++c) {
+            report(strb, debugger, node.jjtGetChild(c), next);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.parser.ASTArguments;
+import org.apache.commons.jexl3.parser.ASTBlock;
+import org.apache.commons.jexl3.parser.ASTBreak;
+import org.apache.commons.jexl3.parser.ASTContinue;
+import org.apache.commons.jexl3.parser.ASTFalseNode;
+import org.apache.commons.jexl3.parser.ASTMapEntry;
+import org.apache.commons.jexl3.parser.ASTNullLiteral;
+import org.apache.commons.jexl3.parser.ASTNumberLiteral;
+import org.apache.commons.jexl3.parser.ASTStringLiteral;
+import org.apache.commons.jexl3.parser.ASTTrueNode;
+import org.apache.commons.jexl3.parser.JexlNode;
+
+/**
+ * An interpreter recording node statistics in a profiler.
+ * <p>Every visit of a node that is not a plain literal, a block or a loop break/continue is counted and (sampled) timed;
+ * executor cache hits and misses as well as errors are recorded too.</p>
+ * <p>All visits go through the interpreter {@link #accept(JexlNode, Object)} method; the primitive evaluations
+ * are performed through visits as well so that logical and arithmetic nodes are counted. The local variables
+ * that comparisons read directly from the frame are not visited, thus not counted.</p>
+ */
+class ProfilingInterpreter extends Interpreter {
+    /** The profiler. */
+    protected final Profiler profiler;
+    /** The last error counted, shared with callees; errors are only counted on the node raising them. */
+    private final RuntimeException[] error;
+
+    /**
+     * Creates a profiling interpreter.
+     * @param engine   the engine creating this interpreter
+     * @param aContext the context to evaluate expression
+     * @param eFrame   the interpreter evaluation frame
+     * @param prof     the profiler
+     */
+    ProfilingInterpreter(Engine engine, JexlContext aContext, Scope.Frame eFrame, Profiler prof) {
+        super(engine, aContext, eFrame);
+        profiler = prof;
+        error = new RuntimeException[1];
+    }
+
+    /**
+     * Copy constructor for closure calls.
+     * @param ii     the interpreter to copy
+     * @param eFrame the call frame
+     */
+    private ProfilingInterpreter(ProfilingInterpreter ii, Scope.Frame eFrame) {
+        super(ii, eFrame);
+        profiler = ii.profiler;
+        error = ii.error;
+    }
+
+    @Override
+    protected Interpreter createCallInterpreter(Scope.Frame callFrame) {
+        return new ProfilingInterpreter(this, callFrame);
+    }
+
+    /**
+     * Executes a statement through its visit so that it is always profiled.
+     * <p>The values of statements are thus computed even if they are not used.</p>
+     * @param node the statement node
+     * @param data the data
+     * @param discard whether the value of the statement is not used
+     * @return the value of the statement
+     */
+    @Override
+    protected Object execute(JexlNode node, Object data, boolean discard) {
+        return accept(node, data);
+    }
+
+    /**
+     * Evaluates a node through its visit so that the logical nodes are profiled.
+     * @param node the node
+     * @param data the data
+     * @return the boolean value
+     */
+    @Override
+    protected boolean evalBoolean(JexlNode node, Object data) {
+        return toBoolean(node, accept(node, data));
+    }
+
+    /**
+     * Evaluates a node through its visit so that the arithmetic nodes are profiled.
+     * @param node the node
+     * @param data the data
+     * @return the long value
+     */
+    @Override
+    protected long evalLong(JexlNode node, Object data) {
+        return toLong(node, accept(node, data));
+    }
+
+    /**
+     * Evaluates a node through its visit so that the arithmetic nodes are profiled.
+     * @param node the node
+     * @param data the data
+     * @return the double value
+     */
+    @Override
+    protected double evalDouble(JexlNode node, Object data) {
+        return toDouble(node, accept(node, data));
+    }
+
+    /**
+     * Whether a node evaluation is profiled.
+     * @param node the node
+     * @return false for plain literals, blocks, arguments, map entries and loop break/continue
+     */
+    private static boolean isProfiled(JexlNode node) {
+        return !(node instanceof ASTNumberLiteral
+                 || node instanceof ASTStringLiteral
+                 || node instanceof ASTNullLiteral
+                 || node instanceof ASTTrueNode
+                 || node instanceof ASTFalseNode
+                 || node instanceof ASTBlock
+                 || node instanceof ASTArguments
+                 || node instanceof ASTMapEntry
+                 || node instanceof ASTBreak
+                 || node instanceof ASTContinue);
+    }
+
+    @Override
+    protected Object accept(JexlNode node, Object data) {
+        if (!isProfiled(node)) {
+            return super.accept(node, data);
+        }
+        final long start = profiler.enter(node);
+        try {
+            return super.accept(node, data);
+        } catch (RuntimeException xany) {
+            throw failed(node, xany);
+        } finally {
+            profiler.exit(node, start);
+        }
+    }
+
+    @Override
+    protected void cacheHit(JexlNode node) {
+        profiler.hit(node);
+    }
+
+    @Override
+    protected void cacheMiss(JexlNode node) {
+        super.cacheMiss(node);
+        profiler.miss(node);
+    }
+
+    /**
+     * Records an error raised by a node.
+     * @param node the node
+     * @param xany the error
+     * @return the error
+     */
+    private RuntimeException failed(JexlNode node, RuntimeException xany) {
+        if (xany != error[0]) {
+            error[0] = xany;
+            profiler.error(node, xany);
+        }
+        return xany;
+    }
+}
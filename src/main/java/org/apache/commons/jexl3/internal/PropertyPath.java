@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlArithmetic;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlOperator;
+import org.apache.commons.jexl3.JexlPropertyPath;
+import org.apache.commons.jexl3.introspection.JexlPropertyGet;
+import org.apache.commons.jexl3.introspection.JexlPropertySet;
+import org.apache.commons.jexl3.introspection.JexlUberspect.PropertyResolver;
+import org.apache.commons.jexl3.parser.ASTArrayAccess;
+import org.apache.commons.jexl3.parser.ASTIdentifier;
+import org.apache.commons.jexl3.parser.ASTIdentifierAccess;
+import org.apache.commons.jexl3.parser.ASTJexlScript;
+import org.apache.commons.jexl3.parser.ASTReference;
+import org.apache.commons.jexl3.parser.JexlNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled property path.
+ * <p>
+ * The path is parsed once as the <code>#0.path</code> expression used by {@link Engine#getProperty}. When this
+ * expression is a chain of property names and constant indices, each access is performed directly through the
+ * uberspect and its executor is kept; the kept executor is tried first and resolution only occurs again
+ * when it fails, typically when the receiver class changes.
+ * </p>
+ * <p>
+ * When an access can not be resolved or a link is null, the interpreter deals with that access only - through
+ * the same methods it uses when evaluating the path expression - and the evaluation resumes from there;
+ * safe navigation, strictness and error reporting are thus the same and no getter is called twice.
+ * Paths that are not such chains, engines whose arithmetic overloads property access operators and contexts
+ * carrying options are evaluated through the interpreter.
+ * </p>
+ * @since 3.2
+ */
+public class PropertyPath implements JexlPropertyPath {
+    /** The engine for this path. */
+    protected final Engine jexl;
+    /** The source text of this path. */
+    protected final String source;
+    /** The syntactic tree getting the property. */
+    protected final ASTJexlScript getter;
+    /** The syntactic tree setting the property, parsed on first use. */
+    private volatile ASTJexlScript setter = null;
+    /** The access nodes, null if the path can not be evaluated directly. */
+    private final JexlNode[] nodes;
+    /** The reference child performing each access; an array access performs all its indices. */
+    private final JexlNode[] owners;
+    /** The constant key of each access. */
+    private final Object[] keys;
+    /**
+     * The last executor used by each access.
+     * <p>Executors are immutable; a racy update only costs a resolution.</p>
+     */
+    private final JexlPropertyGet[] gets;
+    /** The last executor used to set the property. */
+    private volatile JexlPropertySet put = null;
+
+    /**
+     * Creates a property path.
+     * @param engine the engine
+     * @param expr   the property expression
+     */
+    protected PropertyPath(Engine engine, String expr) {
+        jexl = engine;
+        source = jexl.trimSource(expr);
+        String src = "#0" + (source.charAt(0) == '[' ? "" : ".") + source;
+        getter = jexl.parse(null, Engine.PROPERTY_FEATURES, src, new Scope(null, "#0"));
+        nodes = isOverloaded(jexl) ? null : compile(getter.jjtGetChild(0));
+        if (nodes != null) {
+            owners = new JexlNode[nodes.length];
+            keys = new Object[nodes.length];
+            gets = new JexlPropertyGet[nodes.length];
+            for (int i = 0; i < nodes.length; ++i) {
+                JexlNode node = nodes[i];
+                if (node instanceof ASTIdentifierAccess) {
+                    owners[i] = node;
+                    keys[i] = ((ASTIdentifierAccess) node).getIdentifier();
+                } else {
+                    owners[i] = node.jjtGetParent();
+                    keys[i] = ((JexlNode.Constant<?>) node).getLiteral();
+                }
+            }
+        } else {
+            owners = null;
+            keys = null;
+            gets = null;
+        }
+    }
+
+    /**
+     * Checks whether the engine arithmetic overloads property access operators.
+     * @param engine the engine
+     * @return true if accesses must be performed by the interpreter, false otherwise
+     */
+    private static boolean isOverloaded(Engine engine) {
+        JexlArithmetic.Uberspect operators = engine.getArithmeticOperators(engine.arithmetic);
+        return operators != null
+               && (operators.overloads(JexlOperator.PROPERTY_GET)
+                   || operators.overloads(JexlOperator.ARRAY_GET)
+                   || operators.overloads(JexlOperator.PROPERTY_SET)
+                   || operators.overloads(JexlOperator.ARRAY_SET));
+    }
+
+    /**
+     * Collects the access nodes of a reference to the register.
+     * @param node the reference node
+     * @return the access nodes or null if the path contains non-constant accesses
+     */
+    private static JexlNode[] compile(JexlNode node) {
+        if (!(node instanceof ASTReference) || !(node.jjtGetChild(0) instanceof ASTIdentifier)) {
+            return null;
+        }
+        List<JexlNode> accesses = new ArrayList<JexlNode>();
+        for (int c = 1; c < node.jjtGetNumChildren(); ++c) {
+            JexlNode child = node.jjtGetChild(c);
+            if (child instanceof ASTIdentifierAccess && !((ASTIdentifierAccess) child).isExpression()) {
+                accesses.add(child);
+            } else if (child instanceof ASTArrayAccess) {
+                for (int i = 0; i < child.jjtGetNumChildren(); ++i) {
+                    JexlNode index = child.jjtGetChild(i);
+                    if (!(index instanceof JexlNode.Constant<?>)
+                        || ((JexlNode.Constant<?>) index).getLiteral() == null) {
+                        return null;
+                    }
+                    accesses.add(index);
+                }
+            } else {
+                return null;
+            }
+        }
+        return accesses.isEmpty() ? null : accesses.toArray(new JexlNode[accesses.size()]);
+    }
+
+    /**
+     * Checks whether this path can be evaluated directly in a context.
+     * <p>Contexts carrying options may use another arithmetic and are left to the interpreter.</p>
+     * @param context the context
+     * @param bean    the bean
+     * @return true if direct evaluation may be attempted, false otherwise
+     */
+    private boolean isDirect(JexlContext context, Object bean) {
+        return nodes != null && bean != null && !(context instanceof JexlEngine.Options);
+    }
+
+    /**
+     * Gets the operator used to resolve an access.
+     * @param node the access node
+     * @return ARRAY_GET or PROPERTY_GET
+     */
+    private static JexlOperator getOperator(JexlNode node) {
+        return node.jjtGetParent() instanceof ASTArrayAccess ? JexlOperator.ARRAY_GET : JexlOperator.PROPERTY_GET;
+    }
+
+    /**
+     * Checks whether an access is performed by the last child of the path reference.
+     * @param i the access index
+     * @return true if performed by the last reference child, false otherwise
+     */
+    private boolean isLastOwner(int i) {
+        return owners[i] == owners[owners.length - 1];
+    }
+
+    @Override
+    public String getSourceText() {
+        return source;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    @Override
+    public Object get(Object bean) {
+        return get(null, bean);
+    }
+
+    @Override
+    public Object get(JexlContext context, Object bean) {
+        try {
+            if (isDirect(context, bean)) {
+                return access(context, bean);
+            }
+            final Scope.Frame frame = getter.createFrame(bean);
+            final Interpreter interpreter = jexl.createInterpreter(context, frame);
+            return getter.jjtGetChild(0).jjtAccept(interpreter, null);
+        } catch (JexlException xjexl) {
+            if (jexl.isSilent()) {
+                jexl.logger.warn(xjexl.getMessage(), xjexl.getCause());
+                return null;
+            }
+            throw xjexl.clean();
+        }
+    }
+
+    @Override
+    public void set(Object bean, Object value) {
+        set(null, bean, value);
+    }
+
+    @Override
+    public void set(JexlContext context, Object bean, Object value) {
+        try {
+            if (isDirect(context, bean)) {
+                assign(context, bean, value);
+            } else {
+                final ASTJexlScript script = setter();
+                final Scope.Frame frame = script.createFrame(bean, value);
+                final Interpreter interpreter = jexl.createInterpreter(context, frame);
+                script.jjtGetChild(0).jjtAccept(interpreter, null);
+            }
+        } catch (JexlException xjexl) {
+            if (jexl.isSilent()) {
+                jexl.logger.warn(xjexl.getMessage(), xjexl.getCause());
+                return;
+            }
+            throw xjexl.clean();
+        }
+    }
+
+    /**
+     * @return the syntactic tree setting the property
+     */
+    private ASTJexlScript setter() {
+        ASTJexlScript script = setter;
+        if (script == null) {
+            String src = "#0" + (source.charAt(0) == '[' ? "" : ".") + source + "=" + "#1";
+            script = jexl.parse(null, Engine.PROPERTY_FEATURES, src, new Scope(null, "#0", "#1"));
+            setter = script;
+        }
+        return script;
+    }
+
+    /**
+     * Gets the property designated by this path.
+     * <p>A null link ends the evaluation as the interpreter would for the path reference.</p>
+     * @param context the context
+     * @param bean    the bean, not null
+     * @return the value
+     */
+    private Object access(JexlContext context, Object bean) {
+        Interpreter interpreter = null;
+        Object object = bean;
+        for (int i = 0; i < nodes.length; ++i) {
+            if (object == null) {
+                // a null link that is not the last reference child is an error unless protected
+                final JexlNode owner = owners[i - 1];
+                if (isLastOwner(i - 1)) {
+                    return null;
+                }
+                final JexlNode reference = getter.jjtGetChild(0);
+                if (reference.isTernaryProtected() || owner.isSafeLhs()) {
+                    return null;
+                }
+                return jexl.createInterpreter(context, null).unsolvableProperty(reference, owner.toString(), null);
+            }
+            final JexlPropertyGet cached = gets[i];
+            if (cached != null) {
+                Object value = cached.tryInvoke(object, keys[i]);
+                if (!cached.tryFailed(value)) {
+                    object = value;
+                    continue;
+                }
+            }
+            final JexlPropertyGet vg = resolveGet(object, i);
+            if (vg != null) {
+                object = invokeGet(context, vg, object, i);
+            } else {
+                // let the interpreter resolve or fail this access
+                if (interpreter == null) {
+                    interpreter = jexl.createInterpreter(context, null);
+                }
+                object = interpreter.getAttribute(object, keys[i], nodes[i]);
+            }
+        }
+        return object;
+    }
+
+    /**
+     * Sets the property designated by this path.
+     * <p>A null link ends the evaluation as the interpreter would for the path assignment.</p>
+     * @param context the context
+     * @param bean    the bean, not null
+     * @param value   the value to assign
+     */
+    private void assign(JexlContext context, Object bean, Object value) {
+        final int last = nodes.length - 1;
+        Interpreter interpreter = null;
+        Object object = bean;
+        for (int i = 0; i <= last; ++i) {
+            if (object == null) {
+                // a null link that is not the last reference child is an illegal assignment
+                if (!isLastOwner(i - 1)) {
+                    throw new JexlException(owners[i - 1], "illegal assignment form");
+                }
+                // within the last array access, the interpreter fails getting or setting the property
+                interpreter = jexl.createInterpreter(context, null);
+                if (i < last) {
+                    interpreter.getAttribute(null, keys[i], nodes[i]);
+                } else {
+                    final JexlNode reference = getter.jjtGetChild(0);
+                    final int children = reference.jjtGetNumChildren();
+                    final JexlNode objectNode = children > 2 ? reference.jjtGetChild(children - 2) : null;
+                    interpreter.unsolvableProperty(objectNode, "<null>.<?>", null);
+                }
+                return;
+            }
+            if (i == last) {
+                break;
+            }
+            final JexlPropertyGet cached = gets[i];
+            if (cached != null) {
+                Object current = cached.tryInvoke(object, keys[i]);
+                if (!cached.tryFailed(current)) {
+                    object = current;
+                    continue;
+                }
+            }
+            final JexlPropertyGet vg = resolveGet(object, i);
+            if (vg != null) {
+                object = invokeGet(context, vg, object, i);
+            } else {
+                if (interpreter == null) {
+                    interpreter = jexl.createInterpreter(context, null);
+                }
+                object = interpreter.getAttribute(object, keys[i], nodes[i]);
+            }
+        }
+        final Object key = keys[last];
+        final JexlPropertySet cached = put;
+        if (cached != null && !cached.tryFailed(cached.tryInvoke(object, key, value))) {
+            return;
+        }
+        final JexlNode node = nodes[last];
+        Exception xcause = null;
+        try {
+            final JexlOperator operator = node.jjtGetParent() instanceof ASTArrayAccess
+                                          ? JexlOperator.ARRAY_SET : JexlOperator.PROPERTY_SET;
+            List<PropertyResolver> resolvers = jexl.uberspect.getResolvers(operator, object);
+            JexlPropertySet vs = jexl.uberspect.getPropertySet(resolvers, object, key, value);
+            if (vs != null) {
+                vs.invoke(object, value);
+                if (vs.isCacheable()) {
+                    put = vs;
+                }
+                return;
+            }
+        } catch (Exception xany) {
+            xcause = xany;
+        }
+        if (interpreter == null) {
+            interpreter = jexl.createInterpreter(context, null);
+        }
+        if (xcause != null) {
+            interpreter.unsolvableProperty(node, String.valueOf(key), xcause);
+        } else {
+            // let the interpreter narrow the value or fail
+            interpreter.setAttribute(object, key, value, node);
+        }
+    }
+
+    /**
+     * Resolves the executor of an access.
+     * @param object the object
+     * @param i      the access index
+     * @return the executor or null
+     */
+    private JexlPropertyGet resolveGet(Object object, int i) {
+        List<PropertyResolver> resolvers = jexl.uberspect.getResolvers(getOperator(nodes[i]), object);
+        return jexl.uberspect.getPropertyGet(resolvers, object, keys[i]);
+    }
+
+    /**
+     * Invokes the executor of an access, keeping it if possible.
+     * @param context the context
+     * @param vg      the executor
+     * @param object  the object
+     * @param i       the access index
+     * @return the value
+     */
+    private Object invokeGet(JexlContext context, JexlPropertyGet vg, Object object, int i) {
+        try {
+            Object value = vg.invoke(object);
+            if (vg.isCacheable()) {
+                gets[i] = vg;
+            }
+            return value;
+        } catch (Exception xany) {
+            return jexl.createInterpreter(context, null).unsolvableProperty(nodes[i], String.valueOf(keys[i]), xany);
+        }
+    }
+}
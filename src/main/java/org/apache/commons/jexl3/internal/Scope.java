@@ -273,13 +273,29 @@ public final class Scope {
 
     /**
      * A call frame, created from a scope, stores the arguments and local variables in a "stack frame" (sic).
+     * <p>
+     * Numeric local variables can be stored as primitives, boxing only occurring when their value
+     * is read as an object.
+     * </p>
      * @since 3.0
      */
     public static final class Frame {
+        /** The type of slots holding an object. */
+        public static final int OBJECT = 0;
+        /** The type of slots holding an int. */
+        public static final int INT = 1;
+        /** The type of slots holding a long. */
+        public static final int LONG = 2;
+        /** The type of slots holding a double. */
+        public static final int DOUBLE = 3;
         /** The scope. */
         private final Scope scope;
-        /** The actual stack frame. */
+        /** The actual stack frame; for primitive slots, the boxed value if it was already required. */
         private final Object[] stack;
+        /** The primitive slot types, lazily allocated. */
+        private byte[] types;
+        /** The primitive slot values, doubles being stored as their raw long bits. */
+        private long[] primitives;
         /** Number of curried parameters. */
         private int curried = 0;
 
@@ -303,9 +319,22 @@ public final class Scope {
             return scope;
         }
 
+        /**
+         * Boxes all primitive slots.
+         * @return the stack
+         */
+        private Object[] boxed() {
+            if (types != null) {
+                for (int s = 0; s < types.length; ++s) {
+                    get(s);
+                }
+            }
+            return stack;
+        }
+
         @Override
         public int hashCode() {
-            return Arrays.deepHashCode(this.stack);
+            return Arrays.deepHashCode(boxed());
         }
 
         @Override
@@ -317,7 +346,7 @@ public final class Scope {
                 return false;
             }
             final Frame other = (Frame) obj;
-            return Arrays.deepEquals(this.stack, other.stack);
+            return Arrays.deepEquals(this.boxed(), other.boxed());
         }
 
         /**
@@ -326,7 +355,22 @@ public final class Scope {
          * @return the stacked value
          */
         public Object get(int s) {
-            return stack[s];
+            Object value = stack[s];
+            if (value == null && types != null && types[s] != OBJECT) {
+                final long bits = primitives[s];
+                switch (types[s]) {
+                    case INT:
+                        value = (int) bits;
+                        break;
+                    case LONG:
+                        value = bits;
+                        break;
+                    default:
+                        value = Double.longBitsToDouble(bits);
+                }
+                stack[s] = value;
+            }
+            return value;
         }
 
         /**
@@ -336,6 +380,88 @@ public final class Scope {
          */
         public void set(int r, Object value) {
             stack[r] = value;
+            if (types != null) {
+                types[r] = OBJECT;
+            }
+        }
+
+        /**
+         * Gets the primitive type of a slot.
+         * @param s the offset in this frame
+         * @return OBJECT, INT, LONG or DOUBLE
+         */
+        public int getType(int s) {
+            return types != null ? types[s] : OBJECT;
+        }
+
+        /**
+         * Checks whether a primitive slot value has not been boxed.
+         * @param s the offset in this frame
+         * @return true if the slot is primitive and its value was never required as an object
+         */
+        boolean isUnboxed(int s) {
+            return types != null && types[s] != OBJECT && stack[s] == null;
+        }
+
+        /**
+         * Gets the value of an INT or LONG slot.
+         * @param s the offset in this frame
+         * @return the value
+         */
+        public long getLong(int s) {
+            return primitives[s];
+        }
+
+        /**
+         * Gets the value of a DOUBLE slot.
+         * @param s the offset in this frame
+         * @return the value
+         */
+        public double getDouble(int s) {
+            return Double.longBitsToDouble(primitives[s]);
+        }
+
+        /**
+         * Sets a primitive value.
+         * @param r the offset in this frame
+         * @param type the INT, LONG or DOUBLE type
+         * @param bits the value, the raw long bits for a double
+         */
+        private void setPrimitive(int r, int type, long bits) {
+            if (types == null) {
+                types = new byte[stack.length];
+                primitives = new long[stack.length];
+            }
+            types[r] = (byte) type;
+            primitives[r] = bits;
+            stack[r] = null;
+        }
+
+        /**
+         * Sets an int value.
+         * @param r the offset in this frame
+         * @param value the value
+         */
+        public void setInt(int r, int value) {
+            setPrimitive(r, INT, value);
+        }
+
+        /**
+         * Sets a long value.
+         * @param r the offset in this frame
+         * @param value the value
+         */
+        public void setLong(int r, long value) {
+            setPrimitive(r, LONG, value);
+        }
+
+        /**
+         * Sets a double value.
+         * @param r the offset in this frame
+         * @param value the value
+         */
+        public void setDouble(int r, double value) {
+            setPrimitive(r, DOUBLE, Double.doubleToRawLongBits(value));
         }
 
         /**
@@ -345,7 +471,7 @@ public final class Scope {
          */
         public Frame assign(Object... values) {
             if (stack != null && values != null && values.length > 0) {
-                Object[] copy = stack.clone();
+                Object[] copy = boxed().clone();
                 int ncopy = Math.min(copy.length - curried, values.length);
                 System.arraycopy(values, 0, copy, curried, ncopy);
                 return new Frame(scope, copy, curried + ncopy);
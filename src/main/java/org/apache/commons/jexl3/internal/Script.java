@@ -19,7 +19,9 @@ package org.apache.commons.jexl3.internal;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlScript;
-import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.jexl3.JexlListener;
+import org.apache.commons.jexl3.JexlPredicate;
+import org.apache.commons.jexl3.JexlPrimitiveExpression;
 import org.apache.commons.jexl3.parser.ASTJexlScript;
 
 import org.apache.commons.jexl3.parser.JexlNode;
@@ -31,7 +33,7 @@ import java.util.Set;
  * <p>A JexlScript implementation.</p>
  * @since 1.1
  */
-public class Script implements JexlScript, JexlExpression {
+public class Script implements JexlScript, JexlPrimitiveExpression {
     /**
      * The engine for this expression.
      */
@@ -125,6 +127,16 @@ public class Script implements JexlScript, JexlExpression {
         return getParsedText(2);
     }
 
+    /**
+     * Estimates the memory retained by this script.
+     * @return the estimated size in bytes
+     * @see org.apache.commons.jexl3.JexlEngine#getFootprint(JexlScript)
+     * @since 3.2
+     */
+    public long getFootprint() {
+        return Footprint.sizeOf(this);
+    }
+
     @Override
     public String getParsedText(int indent) {
         Debugger debug = new Debugger();
@@ -177,12 +189,51 @@ public class Script implements JexlScript, JexlExpression {
         return execute(context);
     }
 
+    @Override
+    public boolean evaluateBoolean(JexlContext context) {
+        return evaluate(context, Interpreter.BOOLEAN) != 0L;
+    }
+
+    @Override
+    public long evaluateLong(JexlContext context) {
+        return evaluate(context, Interpreter.LONG);
+    }
+
+    @Override
+    public double evaluateDouble(JexlContext context) {
+        return Double.longBitsToDouble(evaluate(context, Interpreter.DOUBLE));
+    }
+
+    /**
+     * Evaluates this script as a primitive.
+     * @param context the context
+     * @param type    BOOLEAN, LONG or DOUBLE
+     * @return the result, 0 or 1 for a boolean and the raw long bits for a double
+     */
+    protected long evaluate(JexlContext context, int type) {
+        checkCacheVersion();
+        Scope.Frame frame = createFrame(null);
+        Interpreter interpreter = createInterpreter(context, frame);
+        interpret(interpreter, script, type);
+        return interpreter.getPrimitive();
+    }
+
+    @Override
+    public JexlPredicate predicate() {
+        return new JexlPredicate() {
+            @Override
+            public boolean test(JexlContext context) {
+                return evaluateBoolean(context);
+            }
+        };
+    }
+
     @Override
     public Object execute(JexlContext context) {
         checkCacheVersion();
         Scope.Frame frame = createFrame(null);
         Interpreter interpreter = createInterpreter(context, frame);
-        return interpreter.interpret(script);
+        return interpret(interpreter, script);
     }
 
     @Override
@@ -190,7 +241,50 @@ public class Script implements JexlScript, JexlExpression {
         checkCacheVersion();
         Scope.Frame frame = createFrame(args != null && args.length > 0 ? args : null);
         Interpreter interpreter = createInterpreter(context, frame);
-        return interpreter.interpret(script);
+        return interpret(interpreter, script);
+    }
+
+    /**
+     * Interprets a node of this script, recording the execution.
+     * @param interpreter the interpreter
+     * @param node        the node to interpret
+     * @return the result of the interpretation
+     */
+    protected Object interpret(Interpreter interpreter, JexlNode node) {
+        return interpret(interpreter, node, Interpreter.OBJECT);
+    }
+
+    /**
+     * Interprets a node of this script as an object or a primitive, recording the execution.
+     * @param interpreter the interpreter
+     * @param node        the node to interpret
+     * @param type        OBJECT, BOOLEAN, LONG or DOUBLE
+     * @return the result of the interpretation, null if interpreted as a primitive
+     */
+    protected Object interpret(Interpreter interpreter, JexlNode node, int type) {
+        final Object event = FlightRecorder.beginExecute();
+        final long start = jexl.listener != null
+                           ? jexl.listenStart(JexlListener.Type.EXECUTE_START, this, null, null)
+                           : 0L;
+        Object result = null;
+        RuntimeException error = null;
+        boolean ok = false;
+        try {
+            result = interpreter.interpret(node, type);
+            ok = true;
+            return result;
+        } catch (RuntimeException xany) {
+            error = xany;
+            throw xany;
+        } finally {
+            FlightRecorder.endExecute(event, this, ok);
+            if (jexl.listener != null) {
+                if (ok && type != Interpreter.OBJECT) {
+                    result = interpreter.getPrimitiveValue(type);
+                }
+                jexl.listenEnd(JexlListener.Type.EXECUTE_END, start, this, null, null, false, result, error);
+            }
+        }
     }
 
     /**
@@ -235,6 +329,14 @@ public class Script implements JexlScript, JexlExpression {
             return execute(context, (Object[])null);
         }
 
+        @Override
+        protected long evaluate(JexlContext context, int type) {
+            Scope.Frame callFrame = frame != null ? frame.assign((Object[]) null) : null;
+            Interpreter interpreter = jexl.createInterpreter(context, callFrame);
+            interpret(interpreter, script.jjtGetChild(script.jjtGetNumChildren() - 1), type);
+            return interpreter.getPrimitive();
+        }
+
         @Override
         public Object execute(JexlContext context, Object... args) {
             Scope.Frame callFrame = null;
@@ -243,7 +345,7 @@ public class Script implements JexlScript, JexlExpression {
             }
             Interpreter interpreter = jexl.createInterpreter(context, callFrame);
             JexlNode block = script.jjtGetChild(script.jjtGetNumChildren() - 1);
-            return interpreter.interpret(block);
+            return interpret(interpreter, block);
         }
     }
 
@@ -344,7 +446,7 @@ public class Script implements JexlScript, JexlExpression {
          * @return the evaluation result
          */
         protected Object interpret() {
-            return interpreter.interpret(script);
+            return Script.this.interpret(interpreter, script);
         }
 
         @Override
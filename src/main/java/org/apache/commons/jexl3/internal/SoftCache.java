@@ -57,7 +57,7 @@ public class SoftCache<K, V> {
      *
      * @param theSize the cache size
      */
-    SoftCache(int theSize) {
+    public SoftCache(int theSize) {
         size = theSize;
         lock = new ReentrantReadWriteLock();
     }
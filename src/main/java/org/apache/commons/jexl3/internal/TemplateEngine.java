@@ -20,20 +20,30 @@ import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlException;
 import org.apache.commons.jexl3.JexlInfo;
 import org.apache.commons.jexl3.JxltEngine;
+import org.apache.commons.jexl3.introspection.JexlMethod;
 import org.apache.commons.jexl3.parser.ASTJexlScript;
 import org.apache.commons.jexl3.parser.JexlNode;
 import org.apache.commons.jexl3.parser.StringParser;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
+import java.io.Writer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A JxltEngine implementation.
@@ -42,6 +52,17 @@ import java.util.Set;
 public final class TemplateEngine extends JxltEngine {
     /** The TemplateExpression cache. */
     private final SoftCache<String, TemplateExpression> cache;
+    /** The TemplateScript cache, null if caching is disabled. */
+    private final SoftCache<TemplateSource, TemplateScript> templates;
+    /** The number of templates found in cache. */
+    private final AtomicLong templateHits = new AtomicLong();
+    /** The number of templates that were compiled. */
+    private final AtomicLong templateMisses = new AtomicLong();
+    /** The writer print methods keyed by writer class then argument class. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Object>> printMethods =
+            new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Object>>();
+    /** The marker for writer classes that have no print method for an argument class. */
+    private static final Object NO_PRINT = new Object();
     /** The JEXL engine instance. */
     private final Engine jexl;
     /** The first character for immediate expressions. */
@@ -62,6 +83,7 @@ public final class TemplateEngine extends JxltEngine {
     public TemplateEngine(Engine aJexl, boolean noScript, int cacheSize, char immediate, char deferred) {
         this.jexl = aJexl;
         this.cache = new SoftCache<String, TemplateExpression>(cacheSize);
+        this.templates = cacheSize > 0 ? new SoftCache<TemplateSource, TemplateScript>(cacheSize) : null;
         immediateChar = immediate;
         deferredChar = deferred;
         noscript = noScript;
@@ -194,14 +216,77 @@ public final class TemplateEngine extends JxltEngine {
         return jexl;
     }
 
+    @Override
+    public void evaluate(Template template, JexlContext context, OutputStream out, Charset charset,
+                         Object... args) {
+        if (template instanceof TemplateScript) {
+            ((TemplateScript) template).evaluate(context, new EncodedWriter(out, charset), args);
+        } else {
+            super.evaluate(template, context, out, charset, args);
+        }
+    }
+
+    @Override
+    public void evaluate(Template template, JexlContext context, WritableByteChannel channel, Charset charset,
+                         Object... args) {
+        if (template instanceof TemplateScript) {
+            ((TemplateScript) template).evaluate(context, new EncodedWriter(channel, charset), args);
+        } else {
+            super.evaluate(template, context, channel, charset, args);
+        }
+    }
+
     /**
      * Clears the cache.
      */
     @Override
     public void clearCache() {
-        synchronized (cache) {
-            cache.clear();
+        cache.clear();
+        if (templates != null) {
+            templates.clear();
         }
+        printMethods.clear();
+    }
+
+    /**
+     * Finds the print method of a writer for an argument.
+     * <p>The method resolved for a given writer class and argument class is cached when the uberspect allows it.</p>
+     * @param writer the writer
+     * @param arg    the argument to print out
+     * @return the method or null if the writer has no print method for this argument
+     */
+    JexlMethod getPrintMethod(Writer writer, Object arg) {
+        Class<?> wclass = writer.getClass();
+        ConcurrentMap<Class<?>, Object> methods = printMethods.get(wclass);
+        if (methods == null) {
+            methods = new ConcurrentHashMap<Class<?>, Object>();
+            ConcurrentMap<Class<?>, Object> previous = printMethods.putIfAbsent(wclass, methods);
+            if (previous != null) {
+                methods = previous;
+            }
+        }
+        Class<?> aclass = arg.getClass();
+        Object cached = methods.get(aclass);
+        if (cached != null) {
+            return cached == NO_PRINT ? null : (JexlMethod) cached;
+        }
+        JexlMethod method = jexl.getUberspect().getMethod(writer, "print", arg);
+        if (method == null) {
+            methods.put(aclass, NO_PRINT);
+        } else if (method.isCacheable()) {
+            methods.put(aclass, method);
+        }
+        return method;
+    }
+
+    @Override
+    public long getTemplateCacheHits() {
+        return templateHits.get();
+    }
+
+    @Override
+    public long getTemplateCacheMisses() {
+        return templateMisses.get();
     }
 
     /**
@@ -291,7 +376,7 @@ public final class TemplateEngine extends JxltEngine {
          */
         protected final TemplateExpression prepare(Scope.Frame frame, JexlContext context) {
             try {
-                Interpreter interpreter = new TemplateInterpreter(jexl, context, frame, null, null);
+                Interpreter interpreter = new TemplateInterpreter(TemplateEngine.this, context, frame, null, null);
                 return prepare(interpreter);
             } catch (JexlException xjexl) {
                 JexlException xuel = createException(xjexl.getInfo(), "prepare", this, xjexl);
@@ -327,7 +412,7 @@ public final class TemplateEngine extends JxltEngine {
          */
         protected final Object evaluate(Scope.Frame frame, JexlContext context) {
             try {
-                Interpreter interpreter = new TemplateInterpreter(jexl, context, frame, null, null);
+                Interpreter interpreter = new TemplateInterpreter(TemplateEngine.this, context, frame, null, null);
                 return evaluate(interpreter);
             } catch (JexlException xjexl) {
                 JexlException xuel = createException(xjexl.getInfo(), "evaluate", this, xjexl);
@@ -653,14 +738,15 @@ public final class TemplateEngine extends JxltEngine {
 
     @Override
     public JxltEngine.Expression createExpression(JexlInfo info, String expression) {
-        if (info == null) {
-            info = jexl.createInfo();
-        }
         Exception xuel = null;
         TemplateExpression stmt = null;
         try {
             stmt = cache.get(expression);
             if (stmt == null) {
+                // only locate the caller when parsing
+                if (info == null) {
+                    info = jexl.createInfo();
+                }
                 stmt = parseExpression(info, expression, null);
                 cache.put(expression, stmt);
             }
@@ -893,6 +979,39 @@ public final class TemplateEngine extends JxltEngine {
         return builder.build(this, null);
     }
 
+    /**
+     * Binds a template expression parsed without scope to the scope of the template script that calls it.
+     * <p>The constant parts are kept as is, only the JEXL based parts are parsed again; this allows compiling the
+     * verbatim blocks of a template before its script and scope are known.</p>
+     * @param expr  the template expression parsed without scope
+     * @param scope the template script scope
+     * @return the bound template expression
+     */
+    TemplateExpression bindExpression(TemplateExpression expr, Scope scope) {
+        if (expr instanceof CompositeExpression) {
+            TemplateExpression[] cexprs = ((CompositeExpression) expr).exprs;
+            ExpressionBuilder builder = new ExpressionBuilder(cexprs.length);
+            for (TemplateExpression cexpr : cexprs) {
+                builder.add(bindExpression(cexpr, scope));
+            }
+            return builder.build(this, null);
+        }
+        if (expr instanceof JexlBasedExpression) {
+            JexlBasedExpression jexpr = (JexlBasedExpression) expr;
+            JexlInfo info = (JexlInfo) jexpr.node.jjtGetValue();
+            String src = jexpr.expr.toString();
+            if (expr instanceof ImmediateExpression) {
+                return new ImmediateExpression(src, jexl.parse(info, noscript, src, scope), null);
+            }
+            if (expr instanceof DeferredExpression) {
+                return new DeferredExpression(src, jexl.parse(info, noscript, src, scope), null);
+            }
+            // nested expressions keep the immediate marks, parse them again
+            return parseExpression(info, src, scope);
+        }
+        return expr;
+    }
+
     /**
      * The enum capturing the difference between verbatim and code source fragments.
      */
@@ -1017,7 +1136,7 @@ public final class TemplateEngine extends JxltEngine {
             private CharSequence next = doNext();
 
             private CharSequence doNext() {
-                StringBuffer strb = new StringBuffer(64); // CSOFF: MagicNumber
+                StringBuilder strb = new StringBuilder(64); // CSOFF: MagicNumber
                 int c;
                 boolean eol = false;
                 try {
@@ -1067,74 +1186,197 @@ public final class TemplateEngine extends JxltEngine {
      */
     protected List<Block> readTemplate(final String prefix, Reader source) {
         final ArrayList<Block> blocks = new ArrayList<Block>();
-        final BufferedReader reader;
-        if (source instanceof BufferedReader) {
-            reader = (BufferedReader) source;
-        } else {
-            reader = new BufferedReader(source);
-        }
-        final StringBuilder strb = new StringBuilder();
-        BlockType type = null;
-        int prefixLen;
-        Iterator<CharSequence> lines = readLines(reader);
-        int lineno = 0;
-        int start = 0;
-        while (lines.hasNext()) {
-            CharSequence line = lines.next();
-            if (line == null) {
-                break;
-            } else if (type == null) {
-                // determine starting type if not known yet
-                prefixLen = startsWith(line, prefix);
-                if (prefixLen >= 0) {
-                    type = BlockType.DIRECTIVE;
-                    strb.append(line.subSequence(prefixLen, line.length()));
-                } else {
-                    type = BlockType.VERBATIM;
-                    strb.append(line.subSequence(0, line.length()));
+        Iterator<Block> iblocks = readBlocks(prefix, source);
+        while (iblocks.hasNext()) {
+            blocks.add(iblocks.next());
+        }
+        blocks.trimToSize();
+        return blocks;
+    }
+
+    /**
+     * Reads lines of a template grouping them by typed blocks as they are read.
+     * <p>Only the block being read is buffered; lines are appended to it without intermediate copies.</p>
+     * @param prefix the directive prefix
+     * @param source the source reader
+     * @return the block iterator
+     */
+    protected Iterator<Block> readBlocks(final String prefix, Reader source) {
+        final Reader reader = source instanceof BufferedReader ? source : new BufferedReader(source);
+        final Iterator<CharSequence> lines = readLines(reader);
+        return new Iterator<Block>() {
+            /** The current block content. */
+            private final StringBuilder strb = new StringBuilder();
+            /** The current block type, null if not known yet. */
+            private BlockType type = null;
+            /** The current block start line. */
+            private int start = 0;
+            /** The current line number. */
+            private int lineno = 0;
+            /** The next block. */
+            private Block next = doNext();
+
+            private Block doNext() {
+                while (lines.hasNext()) {
+                    CharSequence line = lines.next();
+                    if (line == null) {
+                        break;
+                    }
+                    int prefixLen = startsWith(line, prefix);
+                    BlockType ltype = prefixLen >= 0 ? BlockType.DIRECTIVE : BlockType.VERBATIM;
+                    Block block = null;
+                    if (type != ltype) {
+                        // switch block type, flushing the current one if any
+                        if (type != null) {
+                            block = new Block(type, start, strb.toString());
+                            strb.setLength(0);
+                        }
+                        type = ltype;
+                        start = lineno;
+                    }
+                    strb.append(line, prefixLen >= 0 ? prefixLen : 0, line.length());
+                    lineno += 1;
+                    if (block != null) {
+                        return block;
+                    }
                 }
-                start = lineno;
-            } else if (type == BlockType.DIRECTIVE) {
-                // switch to verbatim if necessary
-                prefixLen = startsWith(line, prefix);
-                if (prefixLen < 0) {
-                    Block directive = new Block(BlockType.DIRECTIVE, start, strb.toString());
-                    strb.delete(0, Integer.MAX_VALUE);
-                    blocks.add(directive);
-                    type = BlockType.VERBATIM;
-                    strb.append(line.subSequence(0, line.length()));
-                    start = lineno;
-                } else {
-                    // still a directive
-                    strb.append(line.subSequence(prefixLen, line.length()));
+                // input may be null
+                if (type != null && strb.length() > 0) {
+                    Block block = new Block(type, start, strb.toString());
+                    strb.setLength(0);
+                    return block;
                 }
-            } else if (type == BlockType.VERBATIM) {
-                // switch to directive if necessary
-                prefixLen = startsWith(line, prefix);
-                if (prefixLen >= 0) {
-                    Block verbatim = new Block(BlockType.VERBATIM, start, strb.toString());
-                    strb.delete(0, Integer.MAX_VALUE);
-                    blocks.add(verbatim);
-                    type = BlockType.DIRECTIVE;
-                    strb.append(line.subSequence(prefixLen, line.length()));
-                    start = lineno;
-                } else {
-                    strb.append(line.subSequence(0, line.length()));
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Block next() {
+                Block current = next;
+                if (current == null) {
+                    throw new NoSuchElementException();
                 }
+                next = doNext();
+                return current;
             }
-            lineno += 1;
-        }
-        // input may be null
-        if (type != null && strb.length() > 0) {
-            Block block = new Block(type, start, strb.toString());
-            blocks.add(block);
-        }
-        blocks.trimToSize();
-        return blocks;
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Not supported.");
+            }
+        };
     }
 
     @Override
     public TemplateScript createTemplate(JexlInfo info, String prefix, Reader source, String... parms) {
         return new TemplateScript(this, info, prefix, source,  parms);
     }
-}
\ No newline at end of file
+
+    @Override
+    public TemplateScript createTemplate(JexlInfo info, String source, String... parms) {
+        return createTemplate(info, "$$", source, parms);
+    }
+
+    @Override
+    public TemplateScript createTemplate(JexlInfo info, String source) {
+        return createTemplate(info, "$$", source, (String[]) null);
+    }
+
+    /**
+     * Creates a template from a source string, reusing a cached instance if possible.
+     * <p>Templates are immutable; concurrent creations of the same template may compile it more than once
+     * but only the first one is kept.</p>
+     * @param info   the source info
+     * @param prefix the directive prefix
+     * @param source the source
+     * @param parms  the parameter names
+     * @return the template
+     */
+    private TemplateScript createTemplate(JexlInfo info, String prefix, String source, String... parms) {
+        if (templates == null) {
+            return new TemplateScript(this, info, prefix, new StringReader(source), parms);
+        }
+        final TemplateSource key = new TemplateSource(info, prefix, source, parms);
+        TemplateScript template = templates.get(key);
+        if (template != null) {
+            templateHits.incrementAndGet();
+            return template;
+        }
+        templateMisses.incrementAndGet();
+        template = new TemplateScript(this, info, prefix, new StringReader(source), parms);
+        templates.put(key, template);
+        return template;
+    }
+
+    /**
+     * The key of cached templates.
+     * <p>The info name, line and column are part of the key when an info is provided since they appear in the
+     * template errors; when none is provided, the cached template keeps the info created when compiling it.</p>
+     */
+    private static final class TemplateSource {
+        /** The info name, null if no info was provided. */
+        private final String name;
+        /** The info line. */
+        private final int line;
+        /** The info column. */
+        private final int column;
+        /** The directive prefix. */
+        private final String prefix;
+        /** The source. */
+        private final String source;
+        /** The parameter names. */
+        private final String[] parms;
+        /** The hash code. */
+        private final int hashCode;
+
+        /**
+         * Creates a template key.
+         * @param info      the source info, may be null
+         * @param thePrefix the directive prefix
+         * @param theSource the source
+         * @param theParms  the parameter names
+         */
+        TemplateSource(JexlInfo info, String thePrefix, String theSource, String[] theParms) {
+            name = info != null ? info.getName() : null;
+            line = info != null ? info.getLine() : -1;
+            column = info != null ? info.getColumn() : -1;
+            prefix = thePrefix;
+            source = theSource;
+            parms = theParms != null ? theParms.clone() : null;
+            int hash = name != null ? name.hashCode() : 0;
+            hash = 31 * hash + line;
+            hash = 31 * hash + column;
+            hash = 31 * hash + prefix.hashCode();
+            hash = 31 * hash + source.hashCode();
+            hash = 31 * hash + Arrays.hashCode(parms);
+            hashCode = hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof TemplateSource)) {
+                return false;
+            }
+            TemplateSource other = (TemplateSource) obj;
+            return hashCode == other.hashCode
+                   && line == other.line
+                   && column == other.column
+                   && (name == null ? other.name == null : name.equals(other.name))
+                   && prefix.equals(other.prefix)
+                   && source.equals(other.source)
+                   && Arrays.equals(parms, other.parms);
+        }
+    }
+}
@@ -21,7 +21,6 @@ import org.apache.commons.jexl3.JexlInfo;
 import org.apache.commons.jexl3.JxltEngine;
 import org.apache.commons.jexl3.internal.TemplateEngine.TemplateExpression;
 import org.apache.commons.jexl3.introspection.JexlMethod;
-import org.apache.commons.jexl3.introspection.JexlUberspect;
 import org.apache.commons.jexl3.parser.ASTArguments;
 import org.apache.commons.jexl3.parser.ASTFunctionNode;
 import org.apache.commons.jexl3.parser.ASTIdentifier;
@@ -39,20 +38,65 @@ public class TemplateInterpreter extends Interpreter {
     private final TemplateExpression[] exprs;
     /** The writer used to output. */
     private final Writer writer;
+    /** The pre-encoded constant expressions when writing bytes, null otherwise. */
+    private final Object[] encoded;
+    /** The template engine. */
+    private final TemplateEngine jxlt;
+    /** The argument of print method calls. */
+    private final Object[] printArgs = new Object[1];
 
     /**
      * Creates a template interpreter instance.
-     * @param jexl        the engine instance
+     * @param engine      the template engine instance
      * @param jcontext    the base context
      * @param jframe      the calling frame
      * @param expressions the list of TemplateExpression from the TemplateScript to evaluate
      * @param out         the output writer
      */
-    TemplateInterpreter(Engine jexl,
+    TemplateInterpreter(TemplateEngine engine,
             JexlContext jcontext, Scope.Frame jframe, TemplateExpression[] expressions, Writer out) {
-        super(jexl, jcontext, jframe);
+        this(engine, jcontext, jframe, expressions, out, null);
+    }
+
+    /**
+     * Creates a template interpreter instance.
+     * @param engine      the template engine instance
+     * @param jcontext    the base context
+     * @param jframe      the calling frame
+     * @param expressions the list of TemplateExpression from the TemplateScript to evaluate
+     * @param out         the output writer
+     * @param chunks      the constant expressions encoded in the charset of the EncodedWriter output
+     */
+    TemplateInterpreter(TemplateEngine engine, JexlContext jcontext, Scope.Frame jframe,
+            TemplateExpression[] expressions, Writer out, Object[] chunks) {
+        super(engine.getEngine(), jcontext, jframe);
+        jxlt = engine;
         exprs = expressions;
         writer = out;
+        encoded = chunks;
+    }
+
+    /**
+     * Creates a template interpreter for an included template.
+     * <p>The engine, context, arithmetic and writer of the including interpreter are shared.</p>
+     * @param ii          the including interpreter
+     * @param jframe      the included template frame
+     * @param expressions the list of TemplateExpression from the included TemplateScript
+     * @param chunks      the constant expressions encoded in the charset of the EncodedWriter output
+     */
+    TemplateInterpreter(TemplateInterpreter ii, Scope.Frame jframe, TemplateExpression[] expressions, Object[] chunks) {
+        super(ii, jframe);
+        exprs = expressions;
+        jxlt = ii.jxlt;
+        writer = ii.writer;
+        encoded = chunks;
+    }
+
+    /**
+     * @return the writer used to output
+     */
+    Writer getWriter() {
+        return writer;
     }
 
     /**
@@ -63,7 +107,11 @@ public class TemplateInterpreter extends Interpreter {
      * @param args   the arguments
      */
     public void include(TemplateScript script, Object... args) {
-        script.evaluate(context, writer, args);
+        if (script.getEngine() == jexl) {
+            script.include(this, args);
+        } else {
+            script.evaluate(context, writer, args);
+        }
     }
 
     /**
@@ -75,11 +123,17 @@ public class TemplateInterpreter extends Interpreter {
             return;
         }
         TemplateEngine.TemplateExpression expr = exprs[e];
+        Object chunk = encoded != null ? encoded[e] : null;
+        if (chunk instanceof byte[]) {
+            doPrint(expr.getInfo(), (byte[]) chunk);
+            return;
+        }
         if (expr.isDeferred()) {
             expr = expr.prepare(frame, context);
+            chunk = null;
         }
         if (expr instanceof TemplateEngine.CompositeExpression) {
-            printComposite((TemplateEngine.CompositeExpression) expr);
+            printComposite((TemplateEngine.CompositeExpression) expr, (byte[][]) chunk);
         } else {
             doPrint(expr.getInfo(), expr.evaluate(this));
         }
@@ -88,22 +142,42 @@ public class TemplateInterpreter extends Interpreter {
     /**
      * Prints a composite expression.
      * @param composite the composite expression
+     * @param chunks the pre-encoded constant sub-expressions or null
      */
-    private void printComposite(TemplateEngine.CompositeExpression composite) {
+    private void printComposite(TemplateEngine.CompositeExpression composite, byte[][] chunks) {
         TemplateEngine.TemplateExpression[] cexprs = composite.exprs;
         final int size = cexprs.length;
         Object value;
         for (int e = 0; e < size; ++e) {
-            value = cexprs[e].evaluate(this);
-            doPrint(cexprs[e].getInfo(), value);
+            if (chunks != null && chunks[e] != null) {
+                doPrint(cexprs[e].getInfo(), chunks[e]);
+            } else {
+                value = cexprs[e].evaluate(this);
+                doPrint(cexprs[e].getInfo(), value);
+            }
+        }
+    }
+
+    /**
+     * Prints pre-encoded bytes to output.
+     * @param info the source info
+     * @param bytes the bytes encoded in the writer charset
+     */
+    private void doPrint(JexlInfo info, byte[] bytes) {
+        try {
+            ((EncodedWriter) writer).writeEncoded(bytes);
+        } catch (java.io.IOException xio) {
+            throw TemplateEngine.createException(info, "call print", null, xio);
         }
     }
 
     /**
      * Prints to output.
      * <p>
-     * This will dynamically try to find the best suitable method in the writer through uberspection.
+     * Strings, numbers, booleans and characters are written directly.
+     * Other values will dynamically try to find the best suitable method in the writer through uberspection.
      * Subclassing Writer by adding 'print' methods should be the preferred way to specialize output.
+     * The method resolved for a given writer class and argument class is cached by the template engine.
      * </p>
      * @param info the source info
      * @param arg  the argument to print out
@@ -113,12 +187,19 @@ public class TemplateInterpreter extends Interpreter {
             if (writer != null) {
                 if (arg instanceof CharSequence) {
                     writer.write(arg.toString());
+                } else if (arg instanceof Number || arg instanceof Boolean) {
+                    writer.write(arg.toString());
+                } else if (arg instanceof Character) {
+                    writer.write(((Character) arg).charValue());
                 } else if (arg != null) {
-                    Object[] value = {arg};
-                    JexlUberspect uber = jexl.getUberspect();
-                    JexlMethod method = uber.getMethod(writer, "print", value);
+                    JexlMethod method = jxlt.getPrintMethod(writer, arg);
                     if (method != null) {
-                        method.invoke(writer, value);
+                        printArgs[0] = arg;
+                        try {
+                            method.invoke(writer, printArgs);
+                        } finally {
+                            printArgs[0] = null;
+                        }
                     } else {
                         writer.write(arg.toString());
                     }
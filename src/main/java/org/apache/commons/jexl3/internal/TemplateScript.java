@@ -23,9 +23,12 @@ import org.apache.commons.jexl3.internal.TemplateEngine.Block;
 import org.apache.commons.jexl3.internal.TemplateEngine.BlockType;
 import org.apache.commons.jexl3.internal.TemplateEngine.TemplateExpression;
 import org.apache.commons.jexl3.parser.ASTJexlScript;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,14 +39,18 @@ import java.util.Set;
 public final class TemplateScript implements JxltEngine.Template {
     /** The prefix marker. */
     private final String prefix;
-    /** The array of source blocks. */
+    /** The array of source blocks, verbatim blocks have no body when their expression restores it. */
     private final Block[] source;
     /** The resulting script. */
     private final ASTJexlScript script;
     /** The TemplateEngine expressions called by the script. */
     private final TemplateExpression[] exprs;
+    /** The expressions restoring the verbatim blocks, the compiled ones even when this template is prepared. */
+    private final TemplateExpression[] verbatims;
     /** The engine. */
     private final TemplateEngine jxlt;
+    /** The constant expressions encoded in the last used charset, stored as the last element. */
+    private volatile Object[] encodedExprs = null;
 
     /**
      * Creates a new template from an character input.
@@ -72,17 +79,29 @@ public final class TemplateScript implements JxltEngine.Template {
         this.jxlt = engine;
         Scope scope = parms == null ? null : new Scope(null, parms);
         prefix = directive;
-        List<Block> blocks = jxlt.readTemplate(prefix, reader);
+        if (info == null) {
+            info = jxlt.getEngine().createInfo();
+        }
+        // blocks are read one at a time without buffering the whole input; each verbatim block is parsed as soon
+        // as it is read and its text is dropped when its expression can restore it, only the directives are kept
+        // to make up the script source where each verbatim block becomes a print call of its expression
+        Iterator<Block> iblocks = jxlt.readBlocks(prefix, reader);
+        List<Block> blocks = new ArrayList<Block>();
         List<TemplateExpression> uexprs = new ArrayList<TemplateExpression>();
         StringBuilder strb = new StringBuilder();
-        int nuexpr = 0;
         int codeStart = -1;
-        for (int b = 0; b < blocks.size(); ++b) {
-            Block block = blocks.get(b);
+        for (int b = 0; iblocks.hasNext(); ++b) {
+            Block block = iblocks.next();
             if (block.getType() == BlockType.VERBATIM) {
                 strb.append("jexl:print(");
-                strb.append(nuexpr++);
+                strb.append(uexprs.size());
                 strb.append(");\n");
+                // the scope is not known yet, the expressions are bound to it once the script is parsed
+                TemplateExpression uexpr = jxlt.parseExpression(info.at(block.getLine(), 0), block.getBody(), null);
+                uexprs.add(uexpr);
+                if (block.getBody().equals(uexpr.asString())) {
+                    block = new Block(BlockType.VERBATIM, block.getLine(), null);
+                }
             } else {
                 // keep track of first block of code, the frame creator
                 if (codeStart < 0) {
@@ -90,28 +109,26 @@ public final class TemplateScript implements JxltEngine.Template {
                 }
                 strb.append(block.getBody());
             }
+            blocks.add(block);
         }
-        // create the script
-        if (info == null) {
-            info = jxlt.getEngine().createInfo();
-        }
-        // allow lambda defining params
+        // create the script, allow lambda defining params
         script = jxlt.getEngine().parse(info.at(0, 0), false, strb.toString(), scope).script();
         scope = script.getScope();
-        // create the exprs using the code frame for those appearing after the first block of code
-        for (int b = 0; b < blocks.size(); ++b) {
-            Block block = blocks.get(b);
-            if (block.getType() == BlockType.VERBATIM) {
-                uexprs.add(
-                        jxlt.parseExpression(
-                                info.at(block.getLine(), 0),
-                                block.getBody(),
-                                b > codeStart ? scope : null)
-                );
+        // bind the exprs to the script scope, only those appearing after the first block of code if any
+        if (scope != null) {
+            int e = 0;
+            for (int b = 0; b < blocks.size(); ++b) {
+                if (blocks.get(b).getType() == BlockType.VERBATIM) {
+                    if (b > codeStart) {
+                        uexprs.set(e, jxlt.bindExpression(uexprs.get(e), scope));
+                    }
+                    e += 1;
+                }
             }
         }
         source = blocks.toArray(new Block[blocks.size()]);
         exprs = uexprs.toArray(new TemplateExpression[uexprs.size()]);
+        verbatims = exprs;
     }
 
     /**
@@ -121,17 +138,20 @@ public final class TemplateScript implements JxltEngine.Template {
      * @param theSource the source
      * @param theScript the script
      * @param theExprs  the expressions
+     * @param theVerbatims the expressions restoring the verbatim blocks
      */
     TemplateScript(TemplateEngine engine,
                    String thePrefix,
                    Block[] theSource,
                    ASTJexlScript theScript,
-                   TemplateExpression[] theExprs) {
+                   TemplateExpression[] theExprs,
+                   TemplateExpression[] theVerbatims) {
         jxlt = engine;
         prefix = thePrefix;
         source = theSource;
         script = theScript;
         exprs = theExprs;
+        verbatims = theVerbatims;
     }
 
     /**
@@ -151,7 +171,15 @@ public final class TemplateScript implements JxltEngine.Template {
     @Override
     public String toString() {
         StringBuilder strb = new StringBuilder();
+        int e = 0;
         for (Block block : source) {
+            if (block.getType() == BlockType.VERBATIM) {
+                TemplateExpression expr = verbatims[e++];
+                if (block.getBody() == null) {
+                    expr.asString(strb);
+                    continue;
+                }
+            }
             block.toString(strb, prefix);
         }
         return strb.toString();
@@ -178,7 +206,7 @@ public final class TemplateScript implements JxltEngine.Template {
         for (int e = 0; e < exprs.length; ++e) {
             immediates[e] = exprs[e].prepare(frame, context);
         }
-        return new TemplateScript(jxlt, prefix, source, script, immediates);
+        return new TemplateScript(jxlt, prefix, source, script, immediates, verbatims);
     }
 
     @Override
@@ -189,8 +217,125 @@ public final class TemplateScript implements JxltEngine.Template {
     @Override
     public void evaluate(JexlContext context, Writer writer, Object... args) {
         Scope.Frame frame = script.createFrame(args);
-        Interpreter interpreter = new TemplateInterpreter(jxlt.getEngine(), context, frame, exprs, writer);
-        interpreter.interpret(script);
+        Interpreter interpreter = new TemplateInterpreter(jxlt, context, frame, exprs, writer);
+        render(interpreter);
+    }
+
+    /**
+     * Evaluates this template, writing bytes.
+     * <p>The constant parts of the template are encoded once per charset and written as is when the charset
+     * allows it. The writer is finished even if the evaluation fails.</p>
+     * @param context the context to use during evaluation
+     * @param writer the encoded writer
+     * @param args the arguments
+     */
+    void evaluate(JexlContext context, EncodedWriter writer, Object... args) {
+        boolean ok = false;
+        try {
+            Scope.Frame frame = script.createFrame(args);
+            Interpreter interpreter = new TemplateInterpreter(jxlt, context, frame, exprs, writer,
+                                                              encode(writer.getCharset()));
+            render(interpreter);
+            ok = true;
+        } finally {
+            try {
+                writer.finish();
+            } catch (IOException xio) {
+                // do not hide the evaluation error
+                if (ok) {
+                    throw new JxltEngine.Exception(null, "flush error", xio);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders this template, recording the rendering.
+     * @param interpreter the template interpreter
+     */
+    private void render(Interpreter interpreter) {
+        final Object event = FlightRecorder.beginRender();
+        boolean ok = false;
+        try {
+            interpreter.interpret(script);
+            ok = true;
+        } finally {
+            FlightRecorder.endRender(event, this, ok);
+        }
+    }
+
+    /**
+     * @return the JEXL engine of this template
+     */
+    Engine getEngine() {
+        return jxlt.getEngine();
+    }
+
+    /**
+     * Evaluates this template as included by another one.
+     * <p>The including interpreter state is shared, only a frame and an interpreter are created; the
+     * namespace functors of the including interpreter are left open.</p>
+     * @param caller the including interpreter
+     * @param args   the arguments
+     */
+    void include(TemplateInterpreter caller, Object... args) {
+        Scope.Frame frame = script.createFrame(args);
+        Writer writer = caller.getWriter();
+        Object[] chunks = writer instanceof EncodedWriter ? encode(((EncodedWriter) writer).getCharset()) : null;
+        Interpreter interpreter = new TemplateInterpreter(caller, frame, exprs, chunks);
+        caller.interpretNested(interpreter, script);
+    }
+
+    /**
+     * Encodes the constant expressions of this template.
+     * <p>The encoded array contains, for each expression, its encoded bytes if it is a constant, an array of
+     * encoded bytes (or null) for each sub-expression of a composite one or null; the last element is the
+     * charset. Nothing is encoded if the charset output can not be concatenated.</p>
+     * @param charset the charset
+     * @return the encoded constant expressions
+     */
+    private Object[] encode(Charset charset) {
+        Object[] encoded = encodedExprs;
+        if (encoded != null && charset.equals(encoded[exprs.length])) {
+            return encoded;
+        }
+        encoded = new Object[exprs.length + 1];
+        final boolean concatenable = EncodedWriter.isConcatenable(charset);
+        for (int e = 0; concatenable && e < exprs.length; ++e) {
+            TemplateExpression expr = exprs[e];
+            if (expr.isDeferred()) {
+                continue;
+            }
+            if (expr instanceof TemplateEngine.CompositeExpression) {
+                TemplateExpression[] cexprs = ((TemplateEngine.CompositeExpression) expr).exprs;
+                byte[][] chunks = new byte[cexprs.length][];
+                for (int c = 0; c < cexprs.length; ++c) {
+                    chunks[c] = encode(cexprs[c], charset);
+                }
+                encoded[e] = chunks;
+            } else {
+                encoded[e] = encode(expr, charset);
+            }
+        }
+        encoded[exprs.length] = charset;
+        encodedExprs = encoded;
+        return encoded;
+    }
+
+    /**
+     * Encodes a constant expression.
+     * @param expr the expression
+     * @param charset the charset
+     * @return the encoded bytes or null if the expression is not a constant string
+     */
+    private static byte[] encode(TemplateExpression expr, Charset charset) {
+        if (expr instanceof TemplateEngine.ConstantExpression) {
+            Object value = expr.evaluate((Interpreter) null);
+            if (value instanceof CharSequence) {
+                return value.toString().getBytes(charset);
+            }
+        }
+        return null;
     }
 
     @Override
@@ -19,6 +19,7 @@ package org.apache.commons.jexl3.internal.introspection;
 import org.apache.commons.jexl3.JexlArithmetic;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlOperator;
+import org.apache.commons.jexl3.internal.FlightRecorder;
 import org.apache.commons.jexl3.introspection.JexlMethod;
 import org.apache.commons.jexl3.introspection.JexlPropertyGet;
 import org.apache.commons.jexl3.introspection.JexlPropertySet;
@@ -220,7 +221,10 @@ public class Uberspect implements JexlUberspect {
 
     @Override
     public JexlMethod getMethod(Object obj, String method, Object... args) {
-        return MethodExecutor.discover(base(), obj, method, args);
+        final Object event = FlightRecorder.beginResolve();
+        final JexlMethod executor = MethodExecutor.discover(base(), obj, method, args);
+        FlightRecorder.endResolve(event, "method", obj, method, executor != null);
+        return executor;
     }
 
     @Override
@@ -236,6 +240,22 @@ public class Uberspect implements JexlUberspect {
     @Override
     public JexlPropertyGet getPropertyGet(
             final List<PropertyResolver> resolvers, final Object obj, final Object identifier
+    ) {
+        final Object event = FlightRecorder.beginResolve();
+        final JexlPropertyGet executor = discoverPropertyGet(resolvers, obj, identifier);
+        FlightRecorder.endResolve(event, "get", obj, identifier, executor != null);
+        return executor;
+    }
+
+    /**
+     * Discovers a property getter.
+     * @param resolvers  the list of property resolvers to try
+     * @param obj        the object
+     * @param identifier property name
+     * @return the property getter or null
+     */
+    private JexlPropertyGet discoverPropertyGet(
+            final List<PropertyResolver> resolvers, final Object obj, final Object identifier
     ) {
         final Class<?> claz = obj.getClass();
         final String property = AbstractExecutor.castString(identifier);
@@ -304,6 +324,23 @@ public class Uberspect implements JexlUberspect {
     @Override
     public JexlPropertySet getPropertySet(
             final List<PropertyResolver> resolvers, final Object obj, final Object identifier, final Object arg
+    ) {
+        final Object event = FlightRecorder.beginResolve();
+        final JexlPropertySet executor = discoverPropertySet(resolvers, obj, identifier, arg);
+        FlightRecorder.endResolve(event, "set", obj, identifier, executor != null);
+        return executor;
+    }
+
+    /**
+     * Discovers a property setter.
+     * @param resolvers  the list of property resolvers to try
+     * @param obj        the object
+     * @param identifier property name
+     * @param arg        value to set
+     * @return the property setter or null
+     */
+    private JexlPropertySet discoverPropertySet(
+            final List<PropertyResolver> resolvers, final Object obj, final Object identifier, final Object arg
     ) {
         final Class<?> claz = obj.getClass();
         final String property = AbstractExecutor.castString(identifier);
@@ -390,7 +427,10 @@ public class Uberspect implements JexlUberspect {
 
     @Override
     public JexlMethod getConstructor(Object ctorHandle, Object... args) {
-        return ConstructorMethod.discover(base(), ctorHandle, args);
+        final Object event = FlightRecorder.beginResolve();
+        final JexlMethod executor = ConstructorMethod.discover(base(), ctorHandle, args);
+        FlightRecorder.endResolve(event, "constructor", null, ctorHandle, executor != null);
+        return executor;
     }
 
     /**
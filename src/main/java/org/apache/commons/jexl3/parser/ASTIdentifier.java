@@ -40,12 +40,13 @@ public class ASTIdentifier extends JexlNode {
         if (identifier.charAt(0) == '#') {
             symbol = Integer.parseInt(identifier.substring(1));
         }
-        name = identifier;
+        // names are shared by all the scripts using them
+        name = identifier.intern();
     }
 
     void setSymbol(int r, String identifier) {
         symbol = r;
-        name = identifier;
+        name = identifier.intern();
     }
 
     public int getSymbol() {
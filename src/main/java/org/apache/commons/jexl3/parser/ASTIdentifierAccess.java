@@ -33,7 +33,8 @@ public class ASTIdentifierAccess extends JexlNode {
     }
 
     void setIdentifier(String id) {
-        name = id;
+        // property names are shared by all the scripts using them, templates are not
+        name = isExpression() ? id : id.intern();
         identifier = parseIdentifier(id);
     }
 
@@ -18,10 +18,17 @@ package org.apache.commons.jexl3.parser;
 
 import org.apache.commons.jexl3.internal.Scope;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
 /**
  * Lambda (function).
  */
 public final class ASTJexlLambda extends ASTJexlScript {
+    /** The function calls through a hoisted variable in tail position, null if none. */
+    private Set<JexlNode> tailCalls = null;
+
     ASTJexlLambda(int id) {
         super(id);
     }
@@ -37,6 +44,83 @@ public final class ASTJexlLambda extends ASTJexlScript {
         return jjtGetParent() == null;
     }
 
+    /**
+     * Whether a node is a function call through a hoisted variable in tail position.
+     * <p>When the called variable holds the closure of this lambda, the call is self-recursive and its result
+     * is the result of this lambda; it can thus be executed as a loop.</p>
+     * @param node the function node
+     * @return true if the node is a tail call
+     */
+    public boolean isTailCall(JexlNode node) {
+        return tailCalls != null && tailCalls.contains(node);
+    }
+
+    /**
+     * Finds the function calls through hoisted variables in tail position.
+     * <p>Called by the parser once the lambda scope is known.</p>
+     */
+    void findTailCalls() {
+        Scope scope = getScope();
+        if (scope != null && jjtGetNumChildren() > 0) {
+            JexlNode body = jjtGetChild(jjtGetNumChildren() - 1);
+            findTailCalls(scope, body);
+            findReturns(scope, body);
+        }
+    }
+
+    /**
+     * Finds the tail calls of return statements.
+     * @param scope the lambda scope
+     * @param node the node to explore
+     */
+    private void findReturns(Scope scope, JexlNode node) {
+        if (node instanceof ASTReturnStatement) {
+            if (node.jjtGetNumChildren() > 0) {
+                findTailCalls(scope, node.jjtGetChild(0));
+            }
+        } else if (!(node instanceof ASTJexlLambda) && !(node instanceof ASTAnnotatedStatement)) {
+            for (int c = 0; c < node.jjtGetNumChildren(); ++c) {
+                findReturns(scope, node.jjtGetChild(c));
+            }
+        }
+    }
+
+    /**
+     * Finds the tail calls of a node in tail position.
+     * @param scope the lambda scope
+     * @param node the node in tail position
+     */
+    private void findTailCalls(Scope scope, JexlNode node) {
+        final int count = node.jjtGetNumChildren();
+        if (node instanceof ASTFunctionNode) {
+            if (count == 2 && node.jjtGetChild(0) instanceof ASTIdentifier) {
+                int symbol = ((ASTIdentifier) node.jjtGetChild(0)).getSymbol();
+                if (symbol >= 0 && scope.isHoistedSymbol(symbol)) {
+                    if (tailCalls == null) {
+                        tailCalls = Collections.newSetFromMap(new IdentityHashMap<JexlNode, Boolean>());
+                    }
+                    tailCalls.add(node);
+                }
+            }
+        } else if (node instanceof ASTBlock || node instanceof ASTReferenceExpression) {
+            if (count > 0) {
+                findTailCalls(scope, node.jjtGetChild(count - 1));
+            }
+        } else if (node instanceof ASTIfStatement) {
+            // the 'then' statements and the optional last 'else'
+            for (int c = 1; c < count; c += 2) {
+                findTailCalls(scope, node.jjtGetChild(c));
+            }
+            if ((count & 1) == 1) {
+                findTailCalls(scope, node.jjtGetChild(count - 1));
+            }
+        } else if (node instanceof ASTTernaryNode || node instanceof ASTNullpNode) {
+            for (int c = 1; c < count; ++c) {
+                findTailCalls(scope, node.jjtGetChild(c));
+            }
+        }
+    }
+
     /**
      * Creates an array of arguments by copying values up to the number of parameters.
      * @param frame the calling frame
@@ -17,26 +17,27 @@
 package org.apache.commons.jexl3.parser;
 
 public final class ASTNumberLiteral extends JexlNode implements JexlNode.Constant<Number> {
-    private final NumberParser nlp;
+    /** The literal value. */
+    private Number literal = null;
+    /** The literal class. */
+    private Class<? extends Number> clazz = null;
 
     ASTNumberLiteral(int id) {
         super(id);
-        nlp = new NumberParser();
     }
 
     ASTNumberLiteral(Parser p, int id) {
         super(p, id);
-        nlp = new NumberParser();
     }
 
     @Override
     public String toString() {
-        return nlp.toString();
+        return new NumberParser(literal, clazz).toString();
     }
 
     @Override
     public Number getLiteral() {
-        return nlp.getLiteralValue();
+        return literal;
     }
 
     @Override
@@ -45,11 +46,11 @@ public final class ASTNumberLiteral extends JexlNode implements JexlNode.Constan
     }
 
     public Class<? extends Number> getLiteralClass() {
-        return nlp.getLiteralClass();
+        return clazz;
     }
 
     public boolean isInteger() {
-        return nlp.isInteger();
+        return Integer.class.equals(clazz);
     }
 
     /**
@@ -58,7 +59,10 @@ public final class ASTNumberLiteral extends JexlNode implements JexlNode.Constan
      * @param s the natural as string
      */
     void setNatural(String s) {
+        NumberParser nlp = new NumberParser();
         nlp.setNatural(s);
+        literal = nlp.getLiteralValue();
+        clazz = nlp.getLiteralClass();
     }
 
     /**
@@ -67,7 +71,10 @@ public final class ASTNumberLiteral extends JexlNode implements JexlNode.Constan
      * @param s the real as string
      */
     void setReal(String s) {
+        NumberParser nlp = new NumberParser();
         nlp.setReal(s);
+        literal = nlp.getLiteralValue();
+        clazz = nlp.getLiteralClass();
     }
 
     @Override
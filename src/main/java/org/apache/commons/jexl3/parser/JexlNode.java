@@ -49,7 +49,8 @@ public abstract class JexlNode extends SimpleNode {
     public void jjtSetFirstToken(Token t) {
         // 0xc = 12, 12 bits -> 4096
         // 0xfff, 12 bits mask
-        this.lc = (t.beginLine << 0xc) | (0xfff & t.beginColumn);
+        // out of range lines and columns saturate instead of wrapping
+        this.lc = (Math.min(t.beginLine, 0x7ffff) << 0xc) | Math.min(t.beginColumn, 0xfff);
     }
 
     public void jjtSetLastToken(Token t) {
@@ -232,6 +233,8 @@ public abstract class JexlNode extends SimpleNode {
      * The rationale is that the ternary / elvis expressions are meant for the user to explictly take control
      * over the error generation; ie, ternaries can return null even if the engine in strict mode
      * would normally throw an exception.
+     * The empty and size functions are protected the same way since they evaluate errors as empty or
+     * zero-sized.
      * </p>
      * @return true if nullable variable, false otherwise
      */
@@ -244,6 +247,9 @@ public abstract class JexlNode extends SimpleNode {
             if (walk instanceof ASTNullpNode) {
                 return true;
             }
+            if (walk instanceof ASTEmptyFunction || walk instanceof ASTSizeFunction) {
+                return true;
+            }
             if (!(walk instanceof ASTReference || walk instanceof ASTArrayAccess)) {
                 break;
             }
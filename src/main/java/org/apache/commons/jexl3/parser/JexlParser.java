@@ -300,6 +300,9 @@ public abstract class JexlParser extends StringParser {
             if (script.getScope() != frame) {
                 script.setScope(frame);
             }
+            if (script instanceof ASTJexlLambda) {
+                ((ASTJexlLambda) script).findTailCalls();
+            }
             popFrame();
         } else if (ASSIGN_NODES.contains(node.getClass())) {
             JexlNode lv = node.jjtGetChild(0);
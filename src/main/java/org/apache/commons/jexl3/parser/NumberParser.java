@@ -30,6 +30,22 @@ public final class NumberParser {
     /** JEXL locale-neutral big decimal format. */
     static final DecimalFormat BIGDF = new DecimalFormat("0.0b", new DecimalFormatSymbols(Locale.ENGLISH));
 
+    /**
+     * Creates a parser.
+     */
+    public NumberParser() {
+    }
+
+    /**
+     * Creates a parser holding an already parsed literal.
+     * @param value the literal value
+     * @param type the literal class
+     */
+    NumberParser(Number value, Class<? extends Number> type) {
+        literal = value;
+        clazz = type;
+    }
+
     @Override
     public String toString() {
         if (literal == null || clazz == null || Double.isNaN(literal.doubleValue())) {
@@ -32,11 +32,13 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
 
 import org.apache.commons.jexl3.JexlBuilder;
 import org.apache.commons.jexl3.JexlContext;
 import org.apache.commons.jexl3.JexlEngine;
 import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.internal.SoftCache;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -84,6 +86,9 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
     /** The JEXL EL engine. */
     private final JexlEngine jexlEngine;
 
+    /** The scripts evaluated from source, null if caching is disabled. */
+    private final SoftCache<String, JexlScript> scripts;
+
     /**
      * Default constructor.
      *
@@ -198,6 +203,9 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
         parentFactory = factory;
         jexlEngine = EngineSingletonHolder.DEFAULT_ENGINE;
         jexlObject = new JexlScriptObject();
+        Object size = factory.getParameter(JexlScriptEngineFactory.SCRIPT_CACHE_SIZE);
+        int scriptsSize = size instanceof Number ? ((Number) size).intValue() : 0;
+        scripts = scriptsSize > 0 ? new SoftCache<String, JexlScript>(scriptsSize) : null;
     }
 
     @Override
@@ -223,7 +231,7 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
         // This is mandated by JSR-223 (end of section SCR.4.3.4.1.2 - JexlScript Execution)
         context.setAttribute(CONTEXT_KEY, context, ScriptContext.ENGINE_SCOPE);
         try {
-            JexlScript jexlScript = jexlEngine.createScript(script);
+            JexlScript jexlScript = cachedScript(script);
             JexlContext ctxt = new JexlContextWrapper(context);
             return jexlScript.execute(ctxt);
         } catch (Exception e) {
@@ -231,6 +239,25 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
         }
     }
 
+    /**
+     * Gets a script from the engine cache, creating it if needed.
+     * <p>The cache evicts the least recently used script when full.</p>
+     *
+     * @param script the script source
+     * @return the script
+     */
+    JexlScript cachedScript(final String script) {
+        if (scripts == null) {
+            return jexlEngine.createScript(script);
+        }
+        JexlScript jexlScript = scripts.get(script);
+        if (jexlScript == null) {
+            jexlScript = jexlEngine.createScript(script);
+            scripts.put(script, jexlScript);
+        }
+        return jexlScript;
+    }
+
     @Override
     public ScriptEngineFactory getFactory() {
         return parentFactory;
@@ -313,10 +340,16 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
      * Wrapper to help convert a JSR-223 ScriptContext into a JexlContext.
      *
      * Current implementation only gives access to ENGINE_SCOPE binding.
+     * <p>When the script context is a SimpleScriptContext, its engine and global bindings are read directly
+     * instead of scanning the scopes on each variable access.</p>
      */
     private final class JexlContextWrapper implements JexlContext {
         /** The wrapped script context. */
         private final ScriptContext scriptContext;
+        /** The engine scope bindings, null if the scopes must be scanned. */
+        private final Bindings engineBindings;
+        /** The global scope bindings. */
+        private final Bindings globalBindings;
 
         /**
          * Creates a context wrapper.
@@ -325,18 +358,41 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
          */
         private JexlContextWrapper (final ScriptContext theContext){
             scriptContext = theContext;
+            if (theContext.getClass() == SimpleScriptContext.class) {
+                engineBindings = theContext.getBindings(ScriptContext.ENGINE_SCOPE);
+                globalBindings = theContext.getBindings(ScriptContext.GLOBAL_SCOPE);
+            } else {
+                engineBindings = null;
+                globalBindings = null;
+            }
+        }
+
+        /**
+         * Gets a variable value from the first scope that defines it.
+         *
+         * @param name the variable name
+         * @return the value or null
+         */
+        private Object getAttribute(final String name) {
+            if (engineBindings == null) {
+                return scriptContext.getAttribute(name);
+            }
+            Object o = engineBindings.get(name);
+            if (o == null && globalBindings != null && !engineBindings.containsKey(name)) {
+                o = globalBindings.get(name);
+            }
+            return o;
         }
 
         @Override
         public Object get(final String name) {
-            final Object o = scriptContext.getAttribute(name);
             if (JEXL_OBJECT_KEY.equals(name)) {
-                if (o != null) {
+                if (getAttribute(name) != null) {
                     LOG.warn("JEXL is a reserved variable name, user defined value is ignored");
                 }
                 return jexlObject;
             }
-            return o;
+            return getAttribute(name);
         }
 
         @Override
@@ -350,7 +406,9 @@ public class JexlScriptEngine extends AbstractScriptEngine implements Compilable
 
         @Override
         public boolean has(final String name) {
-            Bindings bnd = scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
+            Bindings bnd = engineBindings != null
+                           ? engineBindings
+                           : scriptContext.getBindings(ScriptContext.ENGINE_SCOPE);
             return bnd.containsKey(name);
         }
 
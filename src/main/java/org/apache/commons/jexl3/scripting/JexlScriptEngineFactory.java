@@ -41,6 +41,34 @@ import org.apache.commons.jexl3.parser.StringParser;
  * @since 2.0
  */
 public class JexlScriptEngineFactory implements ScriptEngineFactory {
+    /**
+     * The parameter key of the number of scripts evaluated from source that each engine keeps compiled.
+     * @since 3.2
+     */
+    public static final String SCRIPT_CACHE_SIZE = "SCRIPT_CACHE_SIZE";
+
+    /** The default script cache size. */
+    private static final int DEFAULT_SCRIPT_CACHE_SIZE = 256;
+
+    /** The script cache size of the engines created by this factory. */
+    private final int scriptCacheSize;
+
+    /**
+     * Creates a factory whose engines use the default script cache size.
+     */
+    public JexlScriptEngineFactory() {
+        this(DEFAULT_SCRIPT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a factory.
+     * @param cacheSize the number of scripts evaluated from source that each engine keeps compiled,
+     *                  0 to disable caching
+     * @since 3.2
+     */
+    public JexlScriptEngineFactory(int cacheSize) {
+        scriptCacheSize = cacheSize;
+    }
 
     @Override
     public String getEngineName() {
@@ -129,6 +157,8 @@ public class JexlScriptEngineFactory implements ScriptEngineFactory {
              * with an expression cache.
              */
             return null;
+        } else if (key.equals(SCRIPT_CACHE_SIZE)) {
+            return scriptCacheSize;
         }
         return null;
     }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import java.util.Iterator;
+
+/**
+ * Locates the first method outside of JEXL in the calling thread stack.
+ * <p>
+ * This is the Java 11 implementation of this class, found in the multi-release jar; frames are walked
+ * lazily and the walk stops at the located frame.</p>
+ * @since 3.2
+ */
+public final class CallerLocator {
+    /** The stack walker. */
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /** Not instantiable. */
+    private CallerLocator() {
+    }
+
+    /**
+     * Checks whether a class belongs to the locating machinery, whose frames precede the ones to examine.
+     * @param className the class name
+     * @return true if a locating class, false otherwise
+     */
+    static boolean isLocating(String className) {
+        return className.equals("org.apache.commons.jexl3.internal.CallerLocator")
+               || className.equals("org.apache.commons.jexl3.JexlEngine");
+    }
+
+    /**
+     * Checks whether a class is a JEXL class whose frames are to be skipped.
+     * @param className the class name
+     * @return true if a JEXL class, false otherwise
+     */
+    static boolean isJexl(String className) {
+        return className.startsWith("org.apache.commons.jexl3.internal.")
+               || className.startsWith("org.apache.commons.jexl3.J");
+    }
+
+    /**
+     * Locates the first calling method outside of JEXL.
+     * @param engine the engine class name
+     * @return the caller stack element or null
+     */
+    public static StackTraceElement locate(String engine) {
+        return WALKER.walk(frames -> {
+            String name = engine;
+            StackWalker.StackFrame frame = null;
+            boolean locating = true;
+            for (Iterator<StackWalker.StackFrame> i = frames.iterator(); i.hasNext();) {
+                frame = i.next();
+                String className = frame.getClassName();
+                if (locating && isLocating(className)) {
+                    continue;
+                }
+                locating = false;
+                if (!className.equals(name)) {
+                    // go deeper if called from jexl implementation classes
+                    if (isJexl(className)) {
+                        name = className;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            return frame != null ? frame.toStackTraceElement() : null;
+        });
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.JxltEngine;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emits JDK Flight Recorder events for parsing, execution, introspection and template rendering.
+ * <p>
+ * This is the Java 11 implementation of this class, found in the multi-release jar; events are only created
+ * when enabled in the running recordings and only committed when exceeding their threshold.</p>
+ * <p>
+ * Each begin method returns an event handle - null if the event is not recorded - that is to be passed to
+ * the matching end method.</p>
+ * @since 3.2
+ */
+public final class FlightRecorder {
+    /** The maximum length of the script or template text recorded in events. */
+    private static final int MAX_TEXT = 256;
+
+    /** Not instantiable. */
+    private FlightRecorder() {
+    }
+
+    /**
+     * A source parsing.
+     */
+    @Name("org.apache.commons.jexl3.Parse")
+    @Label("JEXL Parse")
+    @Category("JEXL")
+    @Description("Parsing of a JEXL source, including cache lookup")
+    @StackTrace(false)
+    static final class ParseEvent extends Event {
+        /** The source length. */
+        @Label("Source Length")
+        int length;
+        /** Whether the script was found in the cache. */
+        @Label("Cache Hit")
+        boolean cached;
+    }
+
+    /**
+     * A script execution.
+     */
+    @Name("org.apache.commons.jexl3.Execute")
+    @Label("JEXL Execute")
+    @Category("JEXL")
+    @Description("Execution of a JEXL script, expression or closure")
+    static final class ExecuteEvent extends Event {
+        /** The script text. */
+        @Label("Script")
+        String script;
+        /** The script identity. */
+        @Label("Script Identity")
+        int identity;
+        /** Whether the execution completed normally. */
+        @Label("Success")
+        boolean success;
+    }
+
+    /**
+     * A method, property accessor or constructor resolution.
+     */
+    @Name("org.apache.commons.jexl3.Resolve")
+    @Label("JEXL Resolve")
+    @Category("JEXL")
+    @Description("Resolution of a method, property accessor or constructor by the uberspect")
+    @Threshold("100 us")
+    static final class ResolveEvent extends Event {
+        /** The resolution kind. */
+        @Label("Kind")
+        String kind;
+        /** The target class. */
+        @Label("Target Class")
+        Class<?> target;
+        /** The method, property or constructor name. */
+        @Label("Name")
+        String name;
+        /** Whether an executor was found. */
+        @Label("Found")
+        boolean found;
+    }
+
+    /**
+     * A template rendering.
+     */
+    @Name("org.apache.commons.jexl3.Render")
+    @Label("JEXL Render")
+    @Category("JEXL")
+    @Description("Rendering of a JEXL template")
+    static final class RenderEvent extends Event {
+        /** The template text. */
+        @Label("Template")
+        String template;
+        /** The template identity. */
+        @Label("Template Identity")
+        int identity;
+        /** Whether the rendering completed normally. */
+        @Label("Success")
+        boolean success;
+    }
+
+    /** The parse event type, checked before creating an event. */
+    private static final EventType PARSE = EventType.getEventType(ParseEvent.class);
+    /** The execute event type. */
+    private static final EventType EXECUTE = EventType.getEventType(ExecuteEvent.class);
+    /** The resolve event type. */
+    private static final EventType RESOLVE = EventType.getEventType(ResolveEvent.class);
+    /** The render event type. */
+    private static final EventType RENDER = EventType.getEventType(RenderEvent.class);
+
+    /**
+     * Starts an event.
+     * @param event the event
+     * @return the event
+     */
+    private static Object begin(Event event) {
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Truncates a text.
+     * @param text the text
+     * @return the text, truncated if too long
+     */
+    private static String truncate(String text) {
+        return text != null && text.length() > MAX_TEXT ? text.substring(0, MAX_TEXT) + "..." : text;
+    }
+
+    /**
+     * Called before parsing a source.
+     * @return the event handle
+     */
+    public static Object beginParse() {
+        return PARSE.isEnabled() ? begin(new ParseEvent()) : null;
+    }
+
+    /**
+     * Called after parsing a source or finding it in the cache.
+     * @param event  the event handle
+     * @param length the source length
+     * @param cached whether the script was found in the cache
+     */
+    public static void endParse(Object event, int length, boolean cached) {
+        if (event != null) {
+            ParseEvent parse = (ParseEvent) event;
+            parse.end();
+            if (parse.shouldCommit()) {
+                parse.length = length;
+                parse.cached = cached;
+                parse.commit();
+            }
+        }
+    }
+
+    /**
+     * Called before executing a script.
+     * @return the event handle
+     */
+    public static Object beginExecute() {
+        return EXECUTE.isEnabled() ? begin(new ExecuteEvent()) : null;
+    }
+
+    /**
+     * Called after executing a script.
+     * @param event  the event handle
+     * @param script the script
+     * @param ok     whether the execution completed normally
+     */
+    public static void endExecute(Object event, JexlScript script, boolean ok) {
+        if (event != null) {
+            ExecuteEvent execute = (ExecuteEvent) event;
+            execute.end();
+            if (execute.shouldCommit()) {
+                String text = script.getSourceText();
+                execute.script = truncate(text != null ? text : script.toString());
+                execute.identity = System.identityHashCode(script);
+                execute.success = ok;
+                execute.commit();
+            }
+        }
+    }
+
+    /**
+     * Called before resolving a method, property accessor or constructor.
+     * @return the event handle
+     */
+    public static Object beginResolve() {
+        return RESOLVE.isEnabled() ? begin(new ResolveEvent()) : null;
+    }
+
+    /**
+     * Called after resolving a method, property accessor or constructor.
+     * @param event  the event handle
+     * @param kind   the resolution kind, one of method, get, set or constructor
+     * @param target the target object
+     * @param name   the method name, property identifier or constructor handle
+     * @param found  whether an executor was found
+     */
+    public static void endResolve(Object event, String kind, Object target, Object name, boolean found) {
+        if (event != null) {
+            ResolveEvent resolve = (ResolveEvent) event;
+            resolve.end();
+            if (resolve.shouldCommit()) {
+                resolve.kind = kind;
+                resolve.target = target != null ? target.getClass() : null;
+                resolve.name = name instanceof Class<?>
+                               ? ((Class<?>) name).getName()
+                               : name != null ? truncate(name.toString()) : null;
+                resolve.found = found;
+                resolve.commit();
+            }
+        }
+    }
+
+    /**
+     * Called before rendering a template.
+     * @return the event handle
+     */
+    public static Object beginRender() {
+        return RENDER.isEnabled() ? begin(new RenderEvent()) : null;
+    }
+
+    /**
+     * Called after rendering a template.
+     * @param event    the event handle
+     * @param template the template
+     * @param ok       whether the rendering completed normally
+     */
+    public static void endRender(Object event, JxltEngine.Template template, boolean ok) {
+        if (event != null) {
+            RenderEvent render = (RenderEvent) event;
+            render.end();
+            if (render.shouldCommit()) {
+                render.template = truncate(template.asString());
+                render.identity = System.identityHashCode(template);
+                render.success = ok;
+                render.commit();
+            }
+        }
+    }
+}
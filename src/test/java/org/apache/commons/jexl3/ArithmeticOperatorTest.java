@@ -90,6 +90,84 @@ public class ArithmeticOperatorTest extends JexlTestCase {
         asserter.assertExpression("'z' !~ ['a','b','c','d','e','f']", Boolean.TRUE);
     }
 
+    @Test
+    public void testRegexpPattern() throws Exception {
+        JexlScript script = JEXL.createScript("(x)->{ x =~ '^[A-Z]{3}-\\\\d+$' }");
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "ABC-123"));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, "AB-123"));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "XYZ-0"));
+        script = JEXL.createScript("(x, y)->{ x !~ y }");
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, "ABC-123", "^[A-Z]{3}-\\d+$"));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "ABC-123", "^[a-z]{3}-\\d+$"));
+        // the arithmetic caches patterns
+        JexlArithmetic arithmetic = JEXL.getArithmetic();
+        Assert.assertSame(arithmetic.toPattern("^[a-z]{3}-\\d+$"), arithmetic.toPattern("^[a-z]{3}-\\d+$"));
+        // each arithmetic owns its cache which evicts the least recently used patterns
+        JexlArithmetic other = new JexlArithmetic(true);
+        Assert.assertNotSame(arithmetic.toPattern("^[a-z]{3}-\\d+$"), other.toPattern("^[a-z]{3}-\\d+$"));
+        java.util.regex.Pattern first = other.toPattern("^[a-z]{3}-\\d+$");
+        for (int p = 0; p < 512; ++p) {
+            Assert.assertSame(first, other.toPattern("^[a-z]{3}-\\d+$"));
+            other.toPattern("p" + p);
+        }
+        // invalid patterns still fail at evaluation time
+        script = JEXL.createScript("(x)->{ x =~ '[' }");
+        try {
+            script.execute(null, "[");
+            Assert.fail("should have failed");
+        } catch (java.util.regex.PatternSyntaxException xsyntax) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConstantMembership() throws Exception {
+        JexlScript script = JEXL.createScript("(x)->{ x =~ ['A', 'B', 'C', 1, 2.5, 10000000000] }");
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "B"));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, "D"));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, 1));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, 2.5d));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, 10000000000L));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, 2));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, (Object) null));
+        script = JEXL.createScript("(x)->{ x !~ { 'A', 'B', 3 } }");
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, "A"));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, 3));
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "C"));
+        // non constant literals are evaluated each time
+        script = JEXL.createScript("(x, y)->{ x =~ ['A', y] }");
+        Assert.assertEquals(Boolean.TRUE, script.execute(null, "B", "B"));
+        Assert.assertEquals(Boolean.FALSE, script.execute(null, "B", "C"));
+    }
+
+    @Test
+    public void testConstantMembershipSemantics() throws Exception {
+        // constant literals match as the same containers held by variables, cached or not
+        final JexlEngine[] engines = {
+            new JexlBuilder().cache(32).create(),
+            new JexlBuilder().cache(0).create()
+        };
+        final String[] containers = {"['A', 'B', 1]", "{'A', 'B', 1}", "['A', 'B', 1, ...]"};
+        final Object[] values = {"A", "C", 1, 1L, 1.0d, Arrays.asList("A", 1), Arrays.asList("A", 2), null};
+        for (String container : containers) {
+            JexlScript variable = engines[1].createScript("(x)->{ var y = " + container + "; x =~ y }");
+            for (JexlEngine jexl : engines) {
+                JexlScript literal = jexl.createScript("(x)->{ x =~ " + container + " }");
+                JexlScript negated = jexl.createScript("(x)->{ x !~ " + container + " }");
+                for (int r = 0; r < 2; ++r) {
+                    for (Object value : values) {
+                        Object expected = variable.execute(null, value);
+                        Assert.assertEquals(container + " =~ " + value, expected, literal.execute(null, value));
+                        Assert.assertEquals(container + " !~ " + value,
+                                !((Boolean) expected), negated.execute(null, value));
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(Boolean.FALSE, engines[0].createScript("1L =~ [1, 2]").execute(null));
+        Assert.assertEquals(Boolean.FALSE, engines[0].createScript("1.0 =~ [1]").execute(null));
+    }
+
     @Test
     public void testStartsEndsWithString() throws Exception {
         asserter.setVariable("x", "foobar");
@@ -25,7 +25,9 @@ import java.util.Map;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.MathContext;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import org.junit.Assert;
@@ -666,6 +668,94 @@ public class ArithmeticTest extends JexlTestCase {
         }
     }
 
+    // an arithmetic that counts the instances derived from options
+    public static class ArithmeticOptions extends JexlArithmetic {
+        private final AtomicInteger derived;
+
+        public ArithmeticOptions(boolean strict, MathContext bigdContext, int bigdScale, AtomicInteger counter) {
+            super(strict, bigdContext, bigdScale);
+            derived = counter;
+        }
+
+        @Override
+        protected JexlArithmetic createWithOptions(boolean astrict, MathContext bigdContext, int bigdScale) {
+            derived.incrementAndGet();
+            return new ArithmeticOptions(astrict, bigdContext, bigdScale, derived);
+        }
+
+        public Var add(Var lhs, Var rhs) {
+            return new Var(lhs.value + rhs.value);
+        }
+    }
+
+    @Test
+    public void testDerivedArithmetic() throws Exception {
+        AtomicInteger derived = new AtomicInteger();
+        JexlEngine jexl = new JexlBuilder()
+                .arithmetic(new ArithmeticOptions(true, MathContext.DECIMAL128, 2, derived))
+                .create();
+        JexlScript script = jexl.createScript("x / y + 0.001b");
+        JexlScript plus = jexl.createScript("v + v");
+        JexlEvalContext ctxt = new JexlEvalContext();
+        ctxt.set("x", new BigDecimal("2"));
+        ctxt.set("y", new BigDecimal("3"));
+        ctxt.set("v", new Var(21));
+        Assert.assertEquals(new BigDecimal("0.67"), script.execute(ctxt));
+        Assert.assertEquals(0, derived.get());
+        ctxt.setMathScale(4);
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(new BigDecimal("0.6677"), script.execute(ctxt));
+            Assert.assertEquals("42", plus.execute(ctxt).toString());
+        }
+        Assert.assertEquals(1, derived.get());
+        ctxt.setMathScale(2);
+        Assert.assertEquals(new BigDecimal("0.67"), script.execute(ctxt));
+        ctxt.setMathScale(3);
+        Assert.assertEquals(new BigDecimal("0.668"), script.execute(ctxt));
+        ctxt.setMathScale(4);
+        Assert.assertEquals(new BigDecimal("0.6677"), script.execute(ctxt));
+        Assert.assertEquals(2, derived.get());
+    }
+
+    @Test
+    public void testLongChains() throws Exception {
+        final int count = 5000;
+        StringBuilder sum = new StringBuilder("x");
+        StringBuilder or = new StringBuilder("x == 0");
+        StringBuilder and = new StringBuilder("x != 0");
+        for (int i = 1; i < count; ++i) {
+            sum.append(" + ").append(i % 2);
+            or.append(" || x == ").append(i);
+            and.append(" && x != ").append(i);
+        }
+        JexlContext ctxt = new MapContext();
+        ctxt.set("x", count - 1);
+        JexlScript script = JEXL.createScript(sum.toString());
+        Assert.assertEquals(sum.toString(), script.getParsedText());
+        Assert.assertEquals(count - 1 + count / 2, script.execute(ctxt));
+        script = JEXL.createScript(or.toString());
+        Assert.assertEquals(or.toString(), script.getParsedText());
+        Assert.assertEquals(Boolean.TRUE, script.execute(ctxt));
+        Assert.assertEquals(Boolean.TRUE, JEXL.createScript("if (" + or + ") { true } else { false }").execute(ctxt));
+        script = JEXL.createScript(and.toString());
+        Assert.assertEquals(and.toString(), script.getParsedText());
+        Assert.assertEquals(Boolean.FALSE, script.execute(ctxt));
+        ctxt.set("x", count);
+        Assert.assertEquals(Boolean.TRUE, script.execute(ctxt));
+        // parenthesized operands and mixed operators keep their structure
+        Assert.assertEquals(7, JEXL.createScript("1 + (2 + 3) - (4 - 5) + 0").execute(null));
+        Assert.assertEquals(Boolean.TRUE, JEXL.createScript("(false || false) || true && (true && true)").execute(null));
+        // chained conditionals
+        StringBuilder ternary = new StringBuilder();
+        for (int i = 0; i < 64; ++i) {
+            ternary.append("x == ").append(i).append(" ? ").append(i).append(" : ");
+        }
+        ternary.append("-1");
+        script = JEXL.createScript(ternary.toString(), "x");
+        Assert.assertEquals(42, script.execute(null, 42));
+        Assert.assertEquals(-1, script.execute(null, 64));
+    }
+
     // an arithmetic that know how to subtract strings
     public static class ArithmeticPlus extends JexlArithmetic {
         public ArithmeticPlus(boolean strict) {
@@ -16,6 +16,9 @@
  */
 package org.apache.commons.jexl3;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -178,6 +181,104 @@ public class AssignTest extends JexlTestCase {
         Assert.assertEquals("Result is not 1000", new Integer(1000), o);
     }
 
+    @Test
+    public void testPropertyPath() throws Exception {
+        Quux quux = new Quux("xuuq", 100);
+        JexlPropertyPath path = JEXL.createPropertyPath("froboz.value");
+        Assert.assertEquals("froboz.value", path.getSourceText());
+        path.set(quux, Integer.valueOf(42));
+        Assert.assertEquals(42, path.get(quux));
+        Assert.assertEquals(42, quux.getFroboz().getValue());
+        // another receiver class resolves again
+        Map<String, Object> froboz = new HashMap<String, Object>();
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("froboz", froboz);
+        path.set(map, "map");
+        Assert.assertEquals("map", path.get(map));
+        Assert.assertEquals(42, path.get(quux));
+        // constant indices
+        JexlPropertyPath indexed = JEXL.createPropertyPath("['froboz']['value']");
+        indexed.set(quux, Integer.valueOf(1000));
+        Assert.assertEquals(1000, indexed.get(quux));
+        Assert.assertEquals("map", indexed.get(map));
+        // a null link is dealt with by the interpreter
+        quux.setFroboz(null);
+        try {
+            path.get(quux);
+            Assert.fail("froboz is null, should fail");
+        } catch (JexlException xjexl) {
+            Assert.assertTrue(xjexl.getMessage().contains("froboz"));
+        }
+        JexlEngine lenient = new JexlBuilder().strict(false).create();
+        Assert.assertNull(lenient.createPropertyPath("froboz.value").get(quux));
+        // unknown property
+        try {
+            JEXL.createPropertyPath("str.foo").get(quux);
+            Assert.fail("foo is not a property, should fail");
+        } catch (JexlException.Property xprop) {
+            Assert.assertEquals("foo", xprop.getProperty());
+        }
+        // a non constant path is evaluated by the interpreter
+        Assert.assertEquals(3, JEXL.createPropertyPath("x + 1").get(Collections.singletonMap("x", 2)));
+    }
+
+    /**
+     * A bean counting the calls to its getter.
+     */
+    public static class Counted {
+        int calls = 0;
+        Object value;
+        public Counted(Object value) {
+            this.value = value;
+        }
+        public Object getValue() {
+            calls += 1;
+            return value;
+        }
+    }
+
+    @Test
+    public void testPropertyPathResume() throws Exception {
+        // a null link fails without calling the previous getters again
+        Counted counted = new Counted(null);
+        JexlPropertyPath path = JEXL.createPropertyPath("value.value");
+        try {
+            path.get(counted);
+            Assert.fail("value is null, should fail");
+        } catch (JexlException xjexl) {
+            Assert.assertEquals(1, counted.calls);
+        }
+        try {
+            path.set(counted, 42);
+            Assert.fail("value is null, should fail");
+        } catch (JexlException xjexl) {
+            Assert.assertEquals(2, counted.calls);
+        }
+        // an unknown property fails without calling the previous getters again
+        counted = new Counted("abc");
+        try {
+            JEXL.createPropertyPath("value.foo").get(counted);
+            Assert.fail("foo is not a property, should fail");
+        } catch (JexlException.Property xprop) {
+            Assert.assertEquals("foo", xprop.getProperty());
+            Assert.assertEquals(1, counted.calls);
+        }
+        // a lenient engine evaluates null links as null
+        JexlEngine lenient = new JexlBuilder().strict(false).create();
+        counted = new Counted(null);
+        Assert.assertNull(lenient.createPropertyPath("value.value.value").get(counted));
+        Assert.assertEquals(1, counted.calls);
+        // an unknown property set fails without calling the previous getters again
+        counted = new Counted(new Froboz(0));
+        try {
+            JEXL.createPropertyPath("value.foo").set(counted, 42);
+            Assert.fail("foo is not a property, should fail");
+        } catch (JexlException.Property xprop) {
+            Assert.assertEquals("foo", xprop.getProperty());
+            Assert.assertEquals(1, counted.calls);
+        }
+    }
+
     @Test
     public void testRejectLocal() throws Exception {
         JexlContext jc = new MapContext();
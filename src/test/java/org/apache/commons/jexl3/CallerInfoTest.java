@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Checks the call-site information created by engines.
+ */
+public class CallerInfoTest extends JexlTestCase {
+
+    public CallerInfoTest() {
+        super("CallerInfoTest");
+    }
+
+    @Test
+    public void testCreateInfo() throws Exception {
+        JexlInfo info = JEXL.createInfo();
+        Assert.assertEquals(CallerInfoTest.class.getName() + ".testCreateInfo", info.getName());
+        Assert.assertTrue(info.getLine() > 0);
+    }
+
+    @Test
+    public void testParseInfo() throws Exception {
+        JexlEngine jexl = new JexlBuilder().strict(true).silent(false).debug(true).create();
+        JexlScript script = jexl.createScript("x.y");
+        try {
+            script.execute(null);
+            Assert.fail("should have failed");
+        } catch (JexlException xjexl) {
+            Assert.assertEquals(CallerInfoTest.class.getName() + ".testParseInfo", xjexl.getInfo().getName());
+        }
+    }
+
+    @Test
+    public void testInvokeInfo() throws Exception {
+        JexlEngine jexl = new JexlBuilder().strict(true).silent(false).debug(true).create();
+        try {
+            jexl.invokeMethod("abc", "foo");
+            Assert.fail("should have failed");
+        } catch (JexlException.Method xmethod) {
+            JexlInfo info = xmethod.getInfo();
+            Assert.assertEquals(CallerInfoTest.class.getName() + ".testInvokeInfo", info.getName());
+            Assert.assertTrue(info.toString(), info.toString().startsWith(info.getName() + "@"));
+        }
+        Assert.assertEquals(3, jexl.invokeMethod("abc", "length"));
+    }
+
+    /**
+     * Adds the files of a directory to a jar.
+     * @param jar  the jar stream
+     * @param dir  the directory
+     * @param path the entry path prefix
+     * @throws Exception if an I/O error occurs
+     */
+    private static void addToJar(JarOutputStream jar, File dir, String path) throws Exception {
+        byte[] buffer = new byte[8192];
+        for (File file : dir.listFiles()) {
+            String name = path + file.getName();
+            if (file.isDirectory()) {
+                addToJar(jar, file, name + "/");
+            } else if (!name.equals("META-INF/MANIFEST.MF")) {
+                jar.putNextEntry(new JarEntry(name));
+                InputStream in = new FileInputStream(file);
+                try {
+                    int n;
+                    while ((n = in.read(buffer)) > 0) {
+                        jar.write(buffer, 0, n);
+                    }
+                } finally {
+                    in.close();
+                }
+                jar.closeEntry();
+            }
+        }
+    }
+
+    /**
+     * Creates a class loader on a multi-release jar made of the compiled classes.
+     * <p>The calling test is skipped before Java 11 or if the Java 11 classes were not compiled.</p>
+     * @param name the simple name of an internal class expected in the Java 11 part of the jar
+     * @return the class loader
+     * @throws Exception if the jar can not be created
+     */
+    static ClassLoader createMultiReleaseLoader(String name) throws Exception {
+        String version = System.getProperty("java.specification.version");
+        Assume.assumeTrue(!version.startsWith("1.") && Integer.parseInt(version) >= 11);
+        File classes = new File(JexlEngine.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        File java11 = new File(classes, "META-INF/versions/11/org/apache/commons/jexl3/internal/" + name + ".class");
+        Assume.assumeTrue(classes.isDirectory() && java11.exists());
+        File jarFile = File.createTempFile("jexl", ".jar");
+        jarFile.deleteOnExit();
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Multi-Release", "true");
+        JarOutputStream jar = new JarOutputStream(new FileOutputStream(jarFile), manifest);
+        try {
+            addToJar(jar, classes, "");
+        } finally {
+            jar.close();
+        }
+        URL logging = LogFactory.class.getProtectionDomain().getCodeSource().getLocation();
+        return new URLClassLoader(new URL[]{jarFile.toURI().toURL(), logging}, null);
+    }
+
+    @Test
+    public void testMultiReleaseJar() throws Exception {
+        ClassLoader loader = createMultiReleaseLoader("CallerLocator");
+        // the java 11 version of the locator is the one loaded from the jar
+        Class<?> locator = loader.loadClass("org.apache.commons.jexl3.internal.CallerLocator");
+        Assert.assertNotNull(locator.getDeclaredField("WALKER"));
+        // and it is the one locating the caller of invokeMethod
+        Class<?> builder = loader.loadClass("org.apache.commons.jexl3.JexlBuilder");
+        Object conf = builder.newInstance();
+        conf = builder.getMethod("strict", boolean.class).invoke(conf, true);
+        conf = builder.getMethod("silent", boolean.class).invoke(conf, false);
+        Object jexl = builder.getMethod("create").invoke(conf);
+        try {
+            jexl.getClass().getMethod("invokeMethod", Object.class, String.class, Object[].class)
+                    .invoke(jexl, "abc", "foo", new Object[0]);
+            Assert.fail("should have failed");
+        } catch (InvocationTargetException xinvoke) {
+            Throwable xmethod = xinvoke.getCause();
+            Assert.assertEquals("org.apache.commons.jexl3.JexlException$Method", xmethod.getClass().getName());
+            Object info = xmethod.getClass().getMethod("getInfo").invoke(xmethod);
+            Object name = info.getClass().getMethod("getName").invoke(info);
+            Assert.assertEquals(CallerInfoTest.class.getName() + ".testMultiReleaseJar", name);
+        }
+    }
+}
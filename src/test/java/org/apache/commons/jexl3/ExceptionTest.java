@@ -231,6 +231,43 @@ public class ExceptionTest extends JexlTestCase {
     }
 
 
+    @Test
+    public void testControlFlowStackless() throws Exception {
+        Assert.assertEquals(0, new JexlException.Break(null).getStackTrace().length);
+        Assert.assertEquals(0, new JexlException.Continue(null).getStackTrace().length);
+        Assert.assertEquals(0, new JexlException.Return(null, "return", 42).getStackTrace().length);
+        Assert.assertTrue(new JexlException.Variable(null, "x", true).getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testStrictEmptySize() throws Exception {
+        JexlEngine jexl = new JexlBuilder().strict(true).silent(false).create();
+        JexlContext ctxt = new MapContext();
+        Assert.assertEquals(Boolean.TRUE, jexl.createScript("empty(x)").execute(ctxt));
+        Assert.assertEquals(0, jexl.createScript("size(x.y)").execute(ctxt));
+        Assert.assertEquals(Boolean.TRUE, jexl.createScript("empty(x) && size(y.z) == 0").execute(ctxt));
+        ctxt.set("x", new MapContext());
+        Assert.assertEquals(Boolean.TRUE, jexl.createScript("empty(x.y.z)").execute(ctxt));
+        try {
+            jexl.createScript("\n x.y.z").execute(ctxt);
+            Assert.fail("should have thrown");
+        } catch (JexlException.Property xprop) {
+            Assert.assertEquals(2, xprop.getInfo().getLine());
+            Assert.assertTrue(xprop.getMessage(), xprop.getMessage().contains("y"));
+            Assert.assertTrue(xprop.getStackTrace().length > 0);
+        }
+    }
+
+    @Test
+    public void testSilentStrict() throws Exception {
+        CaptureLog l = new CaptureLog();
+        JexlEngine jexl = new JexlBuilder().logger(l).strict(true).silent(true).create();
+        JexlContext ctxt = new MapContext();
+        Assert.assertNull(jexl.createScript("x.y").execute(ctxt));
+        Assert.assertNull(jexl.createScript("x.foo()", "x").execute(ctxt, "abc"));
+        Assert.assertEquals(2, l.count("warn"));
+    }
+
     @Test
     public void test206() throws Exception {
         String src = "null.1 = 2; return 42";
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the flight recorder events of the multi-release jar.
+ * <p>The jdk.jfr classes are used through reflection since tests are compiled for older JDKs.</p>
+ */
+public class FlightRecorderTest extends JexlTestCase {
+
+    public FlightRecorderTest() {
+        super("FlightRecorderTest");
+    }
+
+    @Test
+    public void testExecuteEvents() throws Exception {
+        ClassLoader loader = CallerInfoTest.createMultiReleaseLoader("FlightRecorder");
+        Class<?> recorder = loader.loadClass("org.apache.commons.jexl3.internal.FlightRecorder");
+        Method beginExecute = recorder.getMethod("beginExecute");
+        Method beginParse = recorder.getMethod("beginParse");
+        // no recording, no event
+        Assert.assertNull(beginExecute.invoke(null));
+        Assert.assertNull(beginParse.invoke(null));
+        Class<?> recording = Class.forName("jdk.jfr.Recording");
+        Object rec = recording.newInstance();
+        File dump = File.createTempFile("jexl", ".jfr");
+        dump.deleteOnExit();
+        try {
+            recording.getMethod("enable", String.class).invoke(rec, "org.apache.commons.jexl3.Execute");
+            recording.getMethod("disable", String.class).invoke(rec, "org.apache.commons.jexl3.Parse");
+            recording.getMethod("start").invoke(rec);
+            // only the enabled events are created
+            Assert.assertNotNull(beginExecute.invoke(null));
+            Assert.assertNull(beginParse.invoke(null));
+            // a script execution and an inline closure call are recorded
+            Class<?> builder = loader.loadClass("org.apache.commons.jexl3.JexlBuilder");
+            Object jexl = builder.getMethod("create").invoke(builder.newInstance());
+            Object script = jexl.getClass().getMethod("createScript", String.class)
+                    .invoke(jexl, "var f = (x)->{ x + 1 }; f(41)");
+            Object result = script.getClass().getMethod("execute", loader.loadClass(JexlContext.class.getName()))
+                    .invoke(script, new Object[]{null});
+            Assert.assertEquals(42, result);
+            recording.getMethod("stop").invoke(rec);
+            Class<?> path = Class.forName("java.nio.file.Path");
+            Object dumpPath = File.class.getMethod("toPath").invoke(dump);
+            recording.getMethod("dump", path).invoke(rec, dumpPath);
+        } finally {
+            recording.getMethod("close").invoke(rec);
+        }
+        Class<?> file = Class.forName("jdk.jfr.consumer.RecordingFile");
+        Object dumpPath = File.class.getMethod("toPath").invoke(dump);
+        List<?> events = (List<?>) file.getMethod("readAllEvents", Class.forName("java.nio.file.Path"))
+                .invoke(null, dumpPath);
+        int executes = 0;
+        for (Object event : events) {
+            Object type = event.getClass().getMethod("getEventType").invoke(event);
+            if ("org.apache.commons.jexl3.Execute".equals(type.getClass().getMethod("getName").invoke(type))) {
+                executes += 1;
+            }
+        }
+        Assert.assertEquals(2, executes);
+    }
+}
@@ -21,10 +21,17 @@ import org.apache.commons.jexl3.internal.TemplateScript;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
 
 import java.util.Arrays;
 import java.util.List;
@@ -575,6 +582,31 @@ public class JXLTTest extends JexlTestCase {
         Assert.assertEquals("froboz{42}", writer.toString());
     }
 
+    @Test
+    public void testWriterCells() throws Exception {
+        Writer writer = new FrobozWriter(new StringWriter());
+        JxltEngine.Template t = JXLT.createTemplate("$$",
+                new StringReader("$$ for(var c : cells) {\n${c};\n$$ }\n"), "cells");
+        Object[] cells = {1, new Froboz(2), 'c', 3.5d, new Froboz(4), 5L, 'd'};
+        t.evaluate(context, writer, (Object) cells);
+        Assert.assertEquals("1;\nfroboz{2};\nc;\n3.5;\nfroboz{4};\n5;\nd;\n", writer.toString());
+    }
+
+    @Test
+    public void testWriterPrintMethodsPerWriterClass() throws Exception {
+        JxltEngine.Template t = JXLT.createTemplate("$$",
+                new StringReader("$$ for(var c : cells) {\n${c};\n$$ }\n"), "cells");
+        Object[] cells = {new Froboz(2), true, 3};
+        for (int i = 0; i < 2; ++i) {
+            Writer writer = new FrobozWriter(new StringWriter());
+            t.evaluate(context, writer, (Object) cells);
+            Assert.assertEquals("froboz{2};\ntrue;\n3;\n", writer.toString());
+            StringWriter strw = new StringWriter();
+            t.evaluate(context, strw, (Object) cells);
+            Assert.assertEquals(cells[0].toString() + ";\ntrue;\n3;\n", strw.toString());
+        }
+    }
+
     @Test
     public void testReport() throws Exception {
         String rpt
@@ -678,6 +710,225 @@ public class JXLTTest extends JexlTestCase {
         Assert.assertEquals("fourty-two", output);
     }
 
+    @Test
+    public void testEncodedOutput() throws Exception {
+        final String source = "$$ for(var x : list) {\n  <li>\u00e9t\u00e9 ${x}</li>\n$$ }\n";
+        JxltEngine.Template t = JXLT.createTemplate("$$", new StringReader(source), "list");
+        Charset utf8 = Charset.forName("UTF-8");
+        for (int r = 0; r < 2; ++r) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            JXLT.evaluate(t, context, bytes, utf8, (Object) new int[]{1, 2});
+            StringWriter strw = new StringWriter();
+            t.evaluate(context, strw, (Object) new int[]{1, 2});
+            Assert.assertEquals(strw.toString(), new String(bytes.toByteArray(), utf8));
+        }
+        Charset latin1 = Charset.forName("ISO-8859-1");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JXLT.evaluate(t, context, bytes, latin1, (Object) new int[]{3});
+        Assert.assertEquals("  <li>\u00e9t\u00e9 3</li>\n", new String(bytes.toByteArray(), latin1));
+        Assert.assertEquals(17, bytes.size());
+        // characters written before an error are flushed
+        JxltEngine.Template failing = JXLT.createTemplate("$$",
+                new StringReader("<p>${'\u00e9t\u00e9'}${'abc'.charAt(42)}</p>\n"));
+        bytes = new ByteArrayOutputStream();
+        try {
+            JXLT.evaluate(failing, context, bytes, utf8);
+            Assert.fail("should have thrown");
+        } catch (JexlException xjexl) {
+            Assert.assertEquals("<p>\u00e9t\u00e9", new String(bytes.toByteArray(), utf8));
+        }
+    }
+
+    @Test
+    public void testEncodedOutputCharsets() throws Exception {
+        final String source = "$$ var y = x * 2;\n<p>\u00e9t\u00e9 ${x}</p>\n$$ if (x > 1) {\n"
+                + "\u65e5\u672c ${y} \ud83d\ude00\n$$ }\n";
+        JxltEngine.Template t = JXLT.createTemplate("$$", new StringReader(source), "x");
+        StringWriter strw = new StringWriter();
+        t.evaluate(context, strw, 2);
+        final String expected = strw.toString();
+        // a single byte order mark, a single shift state sequence
+        final String[] names = {"UTF-8", "UTF-16", "UTF-16LE", "UTF-32", "ISO-2022-JP", "Shift_JIS"};
+        for (String name : names) {
+            if (!Charset.isSupported(name)) {
+                continue;
+            }
+            Charset charset = Charset.forName(name);
+            for (int r = 0; r < 2; ++r) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JXLT.evaluate(t, context, bytes, charset, 2);
+                Assert.assertEquals(name, new String(expected.getBytes(charset), charset),
+                                    new String(bytes.toByteArray(), charset));
+                Assert.assertArrayEquals(name, expected.getBytes(charset), bytes.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testEncodedChannel() throws Exception {
+        StringBuilder source = new StringBuilder();
+        source.append("$$ for(var x : list) {\n");
+        for (int l = 0; l < 40; ++l) {
+            source.append("<li>").append(l).append(" \u00e9t\u00e9 ${x}</li>\n");
+        }
+        source.append("$$ }\n");
+        JxltEngine.Template t = JXLT.createTemplate("$$", new StringReader(source.toString()), "list");
+        Object list = new int[]{1, 2, 3};
+        StringWriter strw = new StringWriter();
+        t.evaluate(context, strw, list);
+        Charset utf8 = Charset.forName("UTF-8");
+        final byte[] expected = strw.toString().getBytes(utf8);
+        // a plain channel
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        JXLT.evaluate(t, context, Channels.newChannel(bytes), utf8, list);
+        Assert.assertArrayEquals(expected, bytes.toByteArray());
+        // a gathering channel
+        File file = File.createTempFile("jxlt", ".txt");
+        try {
+            FileOutputStream fos = new FileOutputStream(file);
+            try {
+                JXLT.evaluate(t, context, fos.getChannel(), utf8, list);
+            } finally {
+                fos.close();
+            }
+            Assert.assertEquals(expected.length, file.length());
+            byte[] read = new byte[expected.length];
+            DataInputStream dis = new DataInputStream(new FileInputStream(file));
+            try {
+                dis.readFully(read);
+            } finally {
+                dis.close();
+            }
+            Assert.assertArrayEquals(expected, read);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testManyBlocks() throws Exception {
+        StringBuilder source = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        source.append("$$ var s = 0;\n");
+        for (int b = 0; b < 500; ++b) {
+            source.append("line ").append(b).append(" ${s}\n");
+            source.append("$$ s = s + 1;\n");
+            expected.append("line ").append(b).append(' ').append(b).append('\n');
+        }
+        JxltEngine.Template t = JXLT.createTemplate("$$", new StringReader(source.toString()));
+        Assert.assertEquals(source.toString(), t.toString());
+        StringWriter strw = new StringWriter();
+        t.evaluate(context, strw);
+        Assert.assertEquals(expected.toString(), strw.toString());
+    }
+
+    @Test
+    public void testTemplateCache() throws Exception {
+        JxltEngine jxlt = ENGINE.createJxltEngine();
+        final String source = "$$ var x = 2;\nfourty-${x}";
+        JxltEngine.Template t0 = jxlt.createTemplate(source);
+        JxltEngine.Template t1 = jxlt.createTemplate(source);
+        Assert.assertSame(t0, t1);
+        Assert.assertNotSame(t0, jxlt.createTemplate(source, "y"));
+        Assert.assertSame(t0, jxlt.createTemplate(null, source, (String[]) null));
+        Assert.assertEquals(2, jxlt.getTemplateCacheHits());
+        Assert.assertEquals(2, jxlt.getTemplateCacheMisses());
+        StringWriter strw = new StringWriter();
+        t1.evaluate(context, strw);
+        Assert.assertEquals("fourty-2", strw.toString());
+        jxlt.clearCache();
+        Assert.assertNotSame(t0, jxlt.createTemplate(source));
+        Assert.assertEquals(3, jxlt.getTemplateCacheMisses());
+    }
+
+    @Test
+    public void testTemplateCacheInfo() throws Exception {
+        JxltEngine jxlt = ENGINE.createJxltEngine();
+        final String source = "$$ var x = 2;\nfourty-${x}";
+        JxltEngine.Template t0 = jxlt.createTemplate(new JexlInfo("t0.jxlt", 1, 1), source);
+        Assert.assertSame(t0, jxlt.createTemplate(new JexlInfo("t0.jxlt", 1, 1), source));
+        Assert.assertNotSame(t0, jxlt.createTemplate(new JexlInfo("t1.jxlt", 1, 1), source));
+        Assert.assertNotSame(t0, jxlt.createTemplate(new JexlInfo("t0.jxlt", 2, 1), source));
+        Assert.assertNotSame(t0, jxlt.createTemplate(source));
+        Assert.assertEquals(1, jxlt.getTemplateCacheHits());
+        Assert.assertEquals(4, jxlt.getTemplateCacheMisses());
+    }
+
+    @Test
+    public void testTemplateCacheEviction() throws Exception {
+        JxltEngine jxlt = ENGINE.createJxltEngine(true, 2, '$', '#');
+        JxltEngine.Template t0 = jxlt.createTemplate("$$ var x = 0;\n${x}");
+        JxltEngine.Template t1 = jxlt.createTemplate("$$ var x = 1;\n${x}");
+        // t0 is the most recently used, t1 is evicted when a third template is cached
+        Assert.assertSame(t0, jxlt.createTemplate("$$ var x = 0;\n${x}"));
+        JxltEngine.Template t2 = jxlt.createTemplate("$$ var x = 2;\n${x}");
+        Assert.assertSame(t0, jxlt.createTemplate("$$ var x = 0;\n${x}"));
+        Assert.assertSame(t2, jxlt.createTemplate("$$ var x = 2;\n${x}"));
+        Assert.assertNotSame(t1, jxlt.createTemplate("$$ var x = 1;\n${x}"));
+        Assert.assertEquals(3, jxlt.getTemplateCacheHits());
+        Assert.assertEquals(4, jxlt.getTemplateCacheMisses());
+    }
+
+    @Test
+    public void testInclude() throws Exception {
+        JxltEngine.Template row = JXLT.createTemplate("$$", new StringReader("<td>${r}</td>\n"), "r");
+        JxltEngine.Template table = JXLT.createTemplate("$$", new StringReader(
+                "<tr>\n$$ for(var r : rows) {\n$$   jexl:include(row, r);\n$$ }\n</tr>\n"), "row", "rows");
+        final String expected = "<tr>\n<td>1</td>\n<td>\u00e92</td>\n<td>3</td>\n</tr>\n";
+        Object[] rows = {1, "\u00e92", 3};
+        StringWriter strw = new StringWriter();
+        table.evaluate(context, strw, row, rows);
+        Assert.assertEquals(expected, strw.toString());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Charset utf8 = Charset.forName("UTF-8");
+        JXLT.evaluate(table, context, bytes, utf8, row, rows);
+        Assert.assertEquals(expected, new String(bytes.toByteArray(), utf8));
+    }
+
+    /**
+     * A stateful namespace functor counting its calls.
+     */
+    public static class Counter implements java.io.Closeable {
+        /** The number of closed counters. */
+        static int closed = 0;
+        /** The count. */
+        private int count = 0;
+        /** Whether this counter is closed. */
+        private boolean isClosed = false;
+
+        public Counter(JexlContext context) {
+            // functor
+        }
+
+        public int next() {
+            Assert.assertFalse("counter is closed", isClosed);
+            return ++count;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+            closed += 1;
+        }
+    }
+
+    @Test
+    public void testIncludeFunctor() throws Exception {
+        JexlEngine jexl = new JexlBuilder()
+                .namespaces(java.util.Collections.<String, Object>singletonMap("cnt", Counter.class))
+                .create();
+        JxltEngine jxlt = jexl.createJxltEngine();
+        JxltEngine.Template row = jxlt.createTemplate("$$", new StringReader("${cnt:next()}\n"));
+        JxltEngine.Template main = jxlt.createTemplate("$$", new StringReader(
+                "$$ var a = cnt:next();\n${a}\n$$ jexl:include(row);\n$$ var b = cnt:next();\n${b}\n"), "row");
+        Counter.closed = 0;
+        StringWriter strw = new StringWriter();
+        main.evaluate(context, strw, row);
+        // the included template shares the functor which is only closed once the including one ends
+        Assert.assertEquals("1\n2\n3\n", strw.toString());
+        Assert.assertEquals(1, Counter.closed);
+    }
+
     @Test
     public void testInterpolation() throws Exception {
         String expr =  "`Hello \n${user}`";
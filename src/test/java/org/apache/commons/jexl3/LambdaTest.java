@@ -229,6 +229,101 @@ public class LambdaTest extends JexlTestCase {
         }
     }
 
+    @Test
+    public void testCallInLoop() throws Exception {
+        JexlEngine jexl = new Engine();
+        JexlContext jc = new MapContext();
+        JexlScript script = jexl.createScript(
+                "var k = 2; var twice = (x)->{ if (x < 0) return 0; x * k };"
+                + "var s = 0; for(var i : [-1, 1, 2, 3]) { s += twice(i); } s");
+        Assert.assertEquals(12, script.execute(jc));
+        // errors in a called lambda are reported by the caller as before
+        script = jexl.createScript("var f = (x)->{ x.foo() }; f(1)");
+        try {
+            script.execute(jc);
+            Assert.fail("should have failed");
+        } catch (JexlException xjexl) {
+            Assert.assertTrue(xjexl.toString().contains("foo"));
+        }
+        JexlEngine silent = new JexlBuilder().silent(true).strict(true).create();
+        script = silent.createScript("var f = (x)->{ x.foo() }; var r = f(1); r == null");
+        Assert.assertEquals(Boolean.TRUE, script.execute(jc));
+    }
+
+    /**
+     * A Java helper calling back a script function.
+     */
+    public static class Folder {
+        /** The context to execute functions with. */
+        private final JexlContext context;
+
+        public Folder(JexlContext ctxt) {
+            context = ctxt;
+        }
+
+        public Object fold(List<?> list, JexlScript f) {
+            Object r = 0;
+            for (Object item : list) {
+                r = f.execute(context, r, item);
+            }
+            return r;
+        }
+
+        public Object fold(int[] array, JexlScript f) {
+            Object r = 0;
+            for (int item : array) {
+                r = f.execute(context, r, item);
+            }
+            return r;
+        }
+    }
+
+    @Test
+    public void testCallFromJava() throws Exception {
+        JexlEngine jexl = new Engine();
+        JexlContext jc = new MapContext();
+        JexlScript script = jexl.createScript(
+                "var k = 2; folder.fold([1, 2, 3], (r, x)->{ if (x == 2) return r; r + x * k })", "folder");
+        // same context as the running script, called within its interpreter
+        Assert.assertEquals(8, script.execute(jc, new Folder(jc)));
+        // another context, called by a new interpreter
+        Assert.assertEquals(8, script.execute(jc, new Folder(new MapContext())));
+        // recursive calls through the Java helper
+        script = jexl.createScript(
+                "var f = (r, x)->{ r + (x > 1 ? folder.fold([x - 1], f) : 0) + x }; folder.fold([4], f)", "folder");
+        Assert.assertEquals(10, script.execute(jc, new Folder(jc)));
+        // errors are reported as before
+        script = jexl.createScript("folder.fold([1], (r, x)->{ x.foo() })", "folder");
+        try {
+            script.execute(jc, new Folder(jc));
+            Assert.fail("should have failed");
+        } catch (JexlException xjexl) {
+            Assert.assertTrue(xjexl.toString().contains("foo"));
+        }
+    }
+
+    @Test
+    public void testTailRecurse() throws Exception {
+        JexlEngine jexl = new Engine();
+        JexlContext jc = new MapContext();
+        String[] srcs = {
+            "var sum = (n, acc)->{ n > 0 ? sum(n - 1, acc + n) : acc }; sum(x, 0)",
+            "var sum = (n, acc)->{ if (n <= 0) { acc } else { sum(n - 1, acc + n) } }; sum(x, 0)",
+            "var sum = (n, acc)->{ if (n > 0) { return sum(n - 1, acc + n); } acc }; sum(x, 0)",
+            "var sum = (n, acc)->{ n > 0 ? (sum(n - 1, acc + n)) : acc }; sum(x, 0)"
+        };
+        for (String src : srcs) {
+            JexlScript script = jexl.createScript(src, "x");
+            Assert.assertEquals(src, 55, script.execute(jc, 10));
+            // deep enough to overflow the stack if not executed as a loop
+            Assert.assertEquals(src, 5000050000L, script.execute(jc, 100000L));
+        }
+        // a call that is not self-recursive is not a loop
+        JexlScript script = jexl.createScript(
+                "var f = (n)->{ n * 2 }; var g = (n)->{ n <= 0 ? f(n) : f(n - 1) }; g(3)");
+        Assert.assertEquals(4, script.execute(jc));
+    }
+
     @Test
     public void testIdentity() throws Exception {
         JexlEngine jexl = new Engine();
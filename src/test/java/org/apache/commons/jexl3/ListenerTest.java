@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests the evaluation listener.
+ */
+public class ListenerTest extends JexlTestCase {
+
+    public ListenerTest() {
+        super("ListenerTest");
+    }
+
+    /**
+     * Records the events it receives.
+     */
+    public static class Recorder implements JexlListener {
+        /** The recorded event types. */
+        private final List<Type> types = new ArrayList<Type>();
+        /** The recorded names. */
+        private final List<String> names = new ArrayList<String>();
+        /** The last end event result. */
+        private Object result = null;
+        /** The last end event error. */
+        private Throwable error = null;
+        /** The last parse end cache flag. */
+        private boolean cached = false;
+        /** The received event instances. */
+        private final List<Event> events = new ArrayList<Event>();
+
+        @Override
+        public void onEvent(Event event) {
+            types.add(event.getType());
+            names.add(event.getName());
+            if (!events.contains(event)) {
+                events.add(event);
+            }
+            switch (event.getType()) {
+                case PARSE_END:
+                    cached = event.isCached();
+                    Assert.assertNotNull(event.getSource());
+                    break;
+                case EXECUTE_END:
+                    result = event.getResult();
+                    error = event.getError();
+                    Assert.assertNotNull(event.getScript());
+                    Assert.assertTrue(event.getDuration() >= 0);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        void clear() {
+            types.clear();
+            names.clear();
+        }
+    }
+
+    /**
+     * A namespace that interrupts the calling thread.
+     */
+    public static class Interrupter {
+        public void interrupt() {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testParseAndExecute() throws Exception {
+        Recorder recorder = new Recorder();
+        JexlEngine jexl = new JexlBuilder().cache(16).listener(recorder).create();
+        JexlScript script = jexl.createScript("x.length() + 1", "x");
+        Assert.assertEquals(JexlListener.Type.PARSE_START, recorder.types.get(0));
+        Assert.assertEquals(JexlListener.Type.PARSE_END, recorder.types.get(1));
+        Assert.assertFalse(recorder.cached);
+        recorder.clear();
+        Assert.assertEquals(3, script.execute(null, "ab"));
+        Assert.assertEquals(JexlListener.Type.EXECUTE_START, recorder.types.get(0));
+        Assert.assertTrue(recorder.types.contains(JexlListener.Type.CACHE_MISS));
+        Assert.assertEquals(JexlListener.Type.EXECUTE_END, recorder.types.get(recorder.types.size() - 1));
+        Assert.assertEquals(3, recorder.result);
+        Assert.assertNull(recorder.error);
+        // the executor is now cached
+        recorder.clear();
+        Assert.assertEquals(4, script.execute(null, "abc"));
+        Assert.assertFalse(recorder.types.contains(JexlListener.Type.CACHE_MISS));
+        // parsing again hits the cache
+        jexl.createScript("x.length() + 1", "x");
+        Assert.assertTrue(recorder.cached);
+        // a single event instance is used by a thread
+        Assert.assertEquals(1, recorder.events.size());
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        Recorder recorder = new Recorder();
+        JexlEngine jexl = new JexlBuilder().strict(true).silent(false).listener(recorder).create();
+        JexlScript script = jexl.createScript("x.foo()", "x");
+        try {
+            script.execute(null, "abc");
+            Assert.fail("should have failed");
+        } catch (JexlException.Method xmethod) {
+            Assert.assertSame(xmethod, recorder.error);
+        }
+        Assert.assertTrue(recorder.types.contains(JexlListener.Type.METHOD_FAILURE));
+        Assert.assertTrue(recorder.names.contains("foo"));
+        try {
+            jexl.createScript("x.(");
+            Assert.fail("should have failed");
+        } catch (JexlException.Parsing xparse) {
+            Assert.assertEquals(JexlListener.Type.PARSE_END, recorder.types.get(recorder.types.size() - 1));
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        Recorder recorder = new Recorder();
+        JexlEngine jexl = new JexlBuilder()
+                .cancellable(true)
+                .namespaces(Collections.<String, Object>singletonMap("t", new Interrupter()))
+                .listener(recorder)
+                .create();
+        JexlScript script = jexl.createScript("t:interrupt(); while(true);");
+        try {
+            script.execute(null);
+            Assert.fail("should have been cancelled");
+        } catch (JexlException.Cancel xcancel) {
+            Assert.assertTrue(recorder.types.contains(JexlListener.Type.CANCEL));
+        }
+        Assert.assertFalse(Thread.currentThread().isInterrupted());
+    }
+
+    @Test
+    public void testClosureCalls() throws Exception {
+        Recorder recorder = new Recorder();
+        JexlEngine jexl = new JexlBuilder().listener(recorder).create();
+        JexlScript script = jexl.createScript("var f = (x)->{ x * 2 }; f(20) + f(1)");
+        Assert.assertEquals(42, script.execute(null));
+        // the script and both closure calls
+        Assert.assertEquals(3, Collections.frequency(recorder.types, JexlListener.Type.EXECUTE_START));
+        Assert.assertEquals(3, Collections.frequency(recorder.types, JexlListener.Type.EXECUTE_END));
+        Assert.assertEquals(42, recorder.result);
+        // primitive evaluations are executions too
+        recorder.clear();
+        Assert.assertTrue(((JexlPrimitiveExpression) jexl.createExpression("1 < 2")).evaluateBoolean(null));
+        Assert.assertTrue(recorder.types.contains(JexlListener.Type.EXECUTE_END));
+        Assert.assertEquals(Boolean.TRUE, recorder.result);
+    }
+
+    @Test
+    public void testReentrantListener() throws Exception {
+        final List<String> ends = new ArrayList<String>();
+        final JexlEngine[] engine = new JexlEngine[1];
+        engine[0] = new JexlBuilder().listener(new JexlListener() {
+            @Override
+            public void onEvent(Event event) {
+                if (event.getType() == Type.EXECUTE_START && !"0".equals(event.getSource())) {
+                    // evaluating with the listened engine does not alter the current event
+                    engine[0].createScript("0").execute(null);
+                    Assert.assertEquals(Type.EXECUTE_START, event.getType());
+                    Assert.assertEquals("40 + 2", event.getSource());
+                } else if (event.getType() == Type.EXECUTE_END) {
+                    ends.add(event.getSource() + "=" + event.getResult());
+                }
+            }
+        }).create();
+        Assert.assertEquals(42, engine[0].createScript("40 + 2").execute(null));
+        Assert.assertEquals(Arrays.asList("0=0", "40 + 2=42"), ends);
+    }
+
+    @Test
+    public void testFailingListener() throws Exception {
+        JexlEngine jexl = new JexlBuilder().listener(new JexlListener() {
+            @Override
+            public void onEvent(Event event) {
+                throw new IllegalStateException("listener");
+            }
+        }).create();
+        Assert.assertEquals(42, jexl.createScript("6 * 7").execute(null));
+    }
+}
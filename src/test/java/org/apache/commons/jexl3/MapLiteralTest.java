@@ -179,4 +179,63 @@ public class MapLiteralTest extends JexlTestCase {
         Assert.assertEquals(42, ((Number) gg).intValue());
         Assert.assertEquals(value, ((Number) gg).intValue());
     }
+
+    @Test
+    public void testImmutableLiterals() throws Exception {
+        JexlEngine jexl = new JexlBuilder().immutableLiterals(true).cache(32).create();
+        JexlContext jc = new MapContext();
+        JexlScript script = jexl.createScript("{ 'a' : 1, 'b' : { 1, 2 }, 'c' : { 'x', 'y' } }");
+        Object m0 = script.execute(jc);
+        Object m1 = script.execute(jc);
+        Assert.assertSame(m0, m1);
+        Map<?, ?> map = (Map<?, ?>) m0;
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(1, map.get("a"));
+        Assert.assertTrue(map.containsKey("c"));
+        Assert.assertNull(map.get("d"));
+        Assert.assertEquals(new java.util.HashSet<Object>(java.util.Arrays.asList("x", "y")), map.get("c"));
+        try {
+            ((Map<Object, Object>) m0).put("d", 4);
+            Assert.fail("should be immutable");
+        } catch (UnsupportedOperationException xmodify) {
+            // expected
+        }
+        // arrays are copied
+        script = jexl.createScript("[1, 2, 3]");
+        int[] a0 = (int[]) script.execute(jc);
+        a0[0] = 42;
+        int[] a1 = (int[]) script.execute(jc);
+        Assert.assertEquals(1, a1[0]);
+        // literals holding nested arrays are not shared
+        script = jexl.createScript("{ 'a' : [1, 2], 'b' : { 'c' : [3] } }");
+        Map<?, ?> n0 = (Map<?, ?>) script.execute(jc);
+        ((int[]) n0.get("a"))[0] = 42;
+        ((int[]) ((Map<?, ?>) n0.get("b")).get("c"))[0] = 42;
+        Map<?, ?> n1 = (Map<?, ?>) script.execute(jc);
+        Assert.assertNotSame(n0, n1);
+        Assert.assertEquals(1, ((int[]) n1.get("a"))[0]);
+        Assert.assertEquals(3, ((int[]) ((Map<?, ?>) n1.get("b")).get("c"))[0]);
+        script = jexl.createScript("[[1, 2], [3]]");
+        Object[] aa0 = (Object[]) script.execute(jc);
+        ((int[]) aa0[0])[0] = 42;
+        Object[] aa1 = (Object[]) script.execute(jc);
+        Assert.assertEquals(1, ((int[]) aa1[0])[0]);
+        // sharing requires the engine cache
+        JexlEngine nocache = new JexlBuilder().immutableLiterals(true).cache(0).create();
+        script = nocache.createScript("{ 'a' : 1 }");
+        Assert.assertNotSame(script.execute(jc), script.execute(jc));
+        // non constant literals are created on each evaluation
+        script = jexl.createScript("(x)->{ { 'a' : x } }");
+        Assert.assertNotSame(script.execute(jc, 1), script.execute(jc, 1));
+        // default engine literals are mutable
+        script = JEXL.createScript("var m = { 'a' : 1 }; m.b = 2; m");
+        Assert.assertEquals(2, ((Map<?, ?>) script.execute(jc)).size());
+        script = jexl.createScript("var m = { 'a' : 1 }; m.b = 2; m");
+        try {
+            script.execute(jc);
+            Assert.fail("should be immutable");
+        } catch (JexlException xjexl) {
+            // expected
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for the primitive evaluation methods of JexlPrimitiveExpression.
+ * @since 3.2
+ */
+public class PrimitiveEvaluationTest extends JexlTestCase {
+
+    public PrimitiveEvaluationTest() {
+        super("PrimitiveEvaluationTest");
+    }
+
+    private static final String[] EXPRS = {
+        "x + y", "x - y", "x * y", "x + z", "z * z - y", "x > y && z < 10", "!(x > y) || z == 0",
+        "x < y ? x + z : y * z", "true", "false", "(x + 1)", "s + x", "x + s", "big + x", "big * big",
+        "max + x", "min - x", "max * max", "f + x", "f * z", "x ?: y", "n", "s"
+    };
+
+    private JexlContext createContext() {
+        JexlContext ctxt = new MapContext();
+        ctxt.set("x", 3);
+        ctxt.set("y", 42L);
+        ctxt.set("z", 1.5d);
+        ctxt.set("s", "12");
+        ctxt.set("big", new java.math.BigDecimal("2.5"));
+        ctxt.set("max", Long.MAX_VALUE);
+        ctxt.set("min", Long.MIN_VALUE);
+        ctxt.set("f", 1.1f);
+        ctxt.set("n", 0);
+        return ctxt;
+    }
+
+    private void checkPrimitives(JexlEngine jexl) {
+        JexlArithmetic arithmetic = jexl.getArithmetic();
+        JexlContext ctxt = createContext();
+        for (String src : EXPRS) {
+            JexlPrimitiveExpression e = (JexlPrimitiveExpression) jexl.createExpression(src);
+            Object value = e.evaluate(ctxt);
+            Assert.assertEquals(src, arithmetic.toBoolean(value), e.evaluateBoolean(ctxt));
+            Assert.assertEquals(src, arithmetic.toBoolean(value), e.predicate().test(ctxt));
+            Assert.assertEquals(src, arithmetic.toLong(value), e.evaluateLong(ctxt));
+            Assert.assertEquals(src, arithmetic.toDouble(value), e.evaluateDouble(ctxt), 0.d);
+        }
+    }
+
+    @Test
+    public void testPrimitivesLenient() throws Exception {
+        checkPrimitives(new JexlBuilder().arithmetic(new JexlArithmetic(false)).create());
+    }
+
+    @Test
+    public void testPrimitivesStrict() throws Exception {
+        checkPrimitives(new JexlBuilder().arithmetic(new JexlArithmetic(true)).create());
+    }
+
+    @Test
+    public void testPrimitivesOverflow() throws Exception {
+        JexlContext ctxt = createContext();
+        JexlPrimitiveExpression e = (JexlPrimitiveExpression) JEXL.createExpression("max + max");
+        Assert.assertEquals(2.d * Long.MAX_VALUE, e.evaluateDouble(ctxt), 0.d);
+        Assert.assertEquals(Long.MAX_VALUE + Long.MAX_VALUE, e.evaluateLong(ctxt));
+    }
+
+    @Test
+    public void testPrimitivesScript() throws Exception {
+        JexlContext ctxt = createContext();
+        JexlScript script = JEXL.createScript("var t = x * 2; t + y");
+        Assert.assertEquals(48L, ((JexlPrimitiveExpression) script).evaluateLong(ctxt));
+        script = JEXL.createScript("(a, b)->{ a > b }");
+        Assert.assertTrue(((JexlPrimitiveExpression) script.curry(2, 1)).evaluateBoolean(ctxt));
+        Object closure = JEXL.createScript("var k = 7; (a)->{ k * 2 }").execute(ctxt);
+        Assert.assertEquals(14.d, ((JexlPrimitiveExpression) closure).evaluateDouble(ctxt), 0.d);
+    }
+
+    @Test
+    public void testPrimitivesErrors() throws Exception {
+        JexlContext ctxt = createContext();
+        JexlEngine jexl = new JexlBuilder().strict(true).silent(false).create();
+        JexlPrimitiveExpression e = (JexlPrimitiveExpression) jexl.createExpression("x + undefined");
+        try {
+            e.evaluateLong(ctxt);
+            Assert.fail("should have thrown");
+        } catch (JexlException xjexl) {
+            // expected
+        }
+        // coercion errors are reported with the node info
+        final String[] sources = {"{ 'a' : 1 }", "return { 'a' : 1 }", "x == null ? { 'a' : 1 } : 0"};
+        for (String source : sources) {
+            JexlPrimitiveExpression s = (JexlPrimitiveExpression) jexl.createScript(source, "x");
+            try {
+                s.evaluateLong(ctxt);
+                Assert.fail(source + " should have thrown");
+            } catch (JexlException xjexl) {
+                Assert.assertNotNull(source, xjexl.getInfo());
+                Assert.assertTrue(source, xjexl.getCause() instanceof ArithmeticException);
+            }
+        }
+        jexl = new JexlBuilder().strict(true).silent(true).create();
+        e = (JexlPrimitiveExpression) jexl.createExpression("undefined.foo > 0");
+        Assert.assertFalse(e.evaluateBoolean(ctxt));
+        Assert.assertEquals(0L, e.evaluateLong(ctxt));
+        Assert.assertEquals(0.d, e.evaluateDouble(ctxt), 0.d);
+        for (String source : sources) {
+            JexlPrimitiveExpression s = (JexlPrimitiveExpression) jexl.createScript(source, "x");
+            Assert.assertEquals(source, 0L, s.evaluateLong(ctxt));
+            Assert.assertEquals(source, 0.d, s.evaluateDouble(ctxt), 0.d);
+        }
+    }
+
+    @Test
+    public void testPrimitivesListened() throws Exception {
+        final List<Object> results = new ArrayList<Object>();
+        JexlEngine jexl = new JexlBuilder().listener(new JexlListener() {
+            @Override
+            public void onEvent(Event event) {
+                if (event.getType() == Type.EXECUTE_END) {
+                    results.add(event.getResult());
+                }
+            }
+        }).create();
+        JexlContext ctxt = createContext();
+        JexlPrimitiveExpression e = (JexlPrimitiveExpression) jexl.createExpression("x * 2");
+        Assert.assertTrue(e.predicate().test(ctxt));
+        Assert.assertEquals(6L, e.evaluateLong(ctxt));
+        Assert.assertEquals(6.d, e.evaluateDouble(ctxt), 0.d);
+        Object closure = jexl.createScript("var k = 1; (a)->{ k + x }").execute(ctxt);
+        Assert.assertEquals(4L, ((JexlPrimitiveExpression) closure).evaluateLong(ctxt));
+        Assert.assertEquals(5, results.size());
+        Assert.assertEquals(Boolean.TRUE, results.get(0));
+        Assert.assertEquals(6L, results.get(1));
+        Assert.assertEquals(6.d, results.get(2));
+        Assert.assertEquals(4L, results.get(4));
+    }
+}
@@ -371,4 +371,31 @@ public class VarTest extends JexlTestCase {
         }
     }
 
+    @Test
+    public void testNumericLocals() throws Exception {
+        JexlContext jc = new MapContext();
+        JexlScript script;
+        Object result;
+        // int counter promoted to long on overflow
+        script = JEXL.createScript("var i = 2147483600; var c = 0; while (i < 2147483700) { c += 1; i += 1; } [i, c]");
+        result = script.execute(jc);
+        Assert.assertArrayEquals(new Object[]{2147483700L, 100}, (Object[]) result);
+        // long stays long, int stays int
+        script = JEXL.createScript("(n)->{ var i = 0; var s = n - n; while (i < n) { s += i; i += 1; } s }");
+        Assert.assertEquals(4950L, script.execute(jc, 100L));
+        Assert.assertEquals(4950, script.execute(jc, 100));
+        // doubles
+        script = JEXL.createScript("var d = 0.5; var i = 0; while (10 > i) { d *= 2; i += 1; } d");
+        Assert.assertEquals(512.d, script.execute(jc));
+        // BigInteger overflow falls back on the arithmetic
+        script = JEXL.createScript("var x = 9223372036854775807; x += 1; x");
+        Assert.assertEquals(new java.math.BigInteger("9223372036854775808"), script.execute(jc));
+        // captured by closures
+        script = JEXL.createScript("var x = 0; x += 1000; x -= 1; var f = (y)->{ x + y }; x += 1; f(1)");
+        Assert.assertEquals(1000, script.execute(jc));
+        // strings are not numbers
+        script = JEXL.createScript("var x = 'a'; x += 1; x += 'b'; x");
+        Assert.assertEquals("a1b", script.execute(jc));
+    }
+
 }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlExpression;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.JexlTestCase;
+import org.apache.commons.jexl3.JxltEngine;
+import org.apache.commons.jexl3.MapContext;
+import org.apache.commons.jexl3.parser.ASTIdentifier;
+import org.apache.commons.jexl3.parser.ASTIdentifierAccess;
+import org.apache.commons.jexl3.parser.ASTNumberLiteral;
+import org.apache.commons.jexl3.parser.JexlNode;
+import java.io.StringReader;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the memory footprint estimates of compiled scripts.
+ */
+public class FootprintTest extends JexlTestCase {
+    /**
+     * The average budget in bytes per node for the corpus; lower it as the tree representation shrinks.
+     */
+    private static final int NODE_BUDGET = 112;
+    /**
+     * A corpus of representative scripts.
+     */
+    private static final String[] CORPUS = {
+        "x",
+        "x + y * 2 - z / 3",
+        "a.b.c.d",
+        "customer.address.city == 'Paris' && customer.age >= 18",
+        "size(items) > 0 ? items[0].price : 0",
+        "var total = 0; for (var item : items) { total += item.price * item.qty; } total",
+        "var f = (x, y) -> { x * y + 1 }; f(1, 2) + f(3, 4)",
+        "if (a > b) { 'greater' } else if (a < b) { 'lesser' } else { 'equal' }",
+        "{ 'name' : name, 'tags' : ['a', 'b', 'c'], 'ids' : { 1, 2, 3 } }",
+        "str =~ '^[a-z]+$' ? str.toUpperCase() : str.substring(0, 3)",
+        "while (i < 10) { i = i + 1; if (i % 2 == 0) { continue; } s += i; } s",
+        "#pragma answer 42\n var r = 0; for (var i : 1..100) { r = r + i } r"
+    };
+
+    public FootprintTest() {
+        super("FootprintTest");
+    }
+
+    /**
+     * Counts the nodes of a tree.
+     * @param node the root node
+     * @return the number of nodes
+     */
+    private static int count(JexlNode node) {
+        int n = 1;
+        for (int c = 0; c < node.jjtGetNumChildren(); ++c) {
+            n += count(node.jjtGetChild(c));
+        }
+        return n;
+    }
+
+    @Test
+    public void testCorpus() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(0).create();
+        long totalBytes = 0;
+        int totalNodes = 0;
+        for (String source : CORPUS) {
+            Script script = (Script) jexl.createScript(source);
+            long bytes = script.getFootprint();
+            int nodes = count(script.script);
+            // at least the source text and one object per node
+            Assert.assertTrue(source, bytes > 2L * source.length() + nodes * Footprint.HEADER);
+            // the fixed cost of a script is spread over its nodes, only check the larger ones
+            if (nodes >= 10) {
+                Assert.assertTrue(source + ": " + bytes / nodes, bytes / nodes < NODE_BUDGET + NODE_BUDGET / 2);
+            }
+            totalBytes += bytes;
+            totalNodes += nodes;
+        }
+        long average = totalBytes / totalNodes;
+        Assert.assertTrue(average + " bytes per node", average < NODE_BUDGET);
+    }
+
+    @Test
+    public void testCompactTree() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(0).create();
+        Script s0 = (Script) jexl.createScript("customer.name + 42l");
+        Script s1 = (Script) jexl.createScript("var x = customer.name; x + 3.5f");
+        // identifier and property names are shared between scripts
+        ASTIdentifier c0 = (ASTIdentifier) s0.script.jjtGetChild(0).jjtGetChild(0).jjtGetChild(0);
+        ASTIdentifier c1 = (ASTIdentifier) s1.script.jjtGetChild(0).jjtGetChild(1).jjtGetChild(0);
+        Assert.assertEquals("customer", c0.getName());
+        Assert.assertSame(c0.getName(), c1.getName());
+        ASTIdentifierAccess n0 = (ASTIdentifierAccess) s0.script.jjtGetChild(0).jjtGetChild(0).jjtGetChild(1);
+        ASTIdentifierAccess n1 = (ASTIdentifierAccess) s1.script.jjtGetChild(0).jjtGetChild(1).jjtGetChild(1);
+        Assert.assertSame(n0.getName(), n1.getName());
+        // number literals keep their class
+        Assert.assertEquals("customer.name + 42l", s0.getParsedText());
+        Assert.assertEquals(Long.class, ((ASTNumberLiteral) s0.script.jjtGetChild(0).jjtGetChild(1)).getLiteralClass());
+        // line and column are still available on error
+        try {
+            jexl.createScript("\n\n   customer.name(").execute(null);
+            Assert.fail("should have failed");
+        } catch (JexlException xjexl) {
+            Assert.assertEquals(3, xjexl.getInfo().getLine());
+        }
+    }
+
+    @Test
+    public void testTemplateText() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(0).create();
+        JxltEngine jxlt = jexl.createJxltEngine(true, 0, '$', '#');
+        StringBuilder line = new StringBuilder();
+        for (int c = 0; c < 100; ++c) {
+            line.append((char) ('a' + c % 26));
+        }
+        StringBuilder source = new StringBuilder("$$ var s = 0;\n");
+        int text = 0;
+        for (int b = 0; b < 100; ++b) {
+            for (int l = 0; l < 10; ++l) {
+                source.append(line).append('\n');
+                text += line.length() + 1;
+            }
+            source.append("${s}\n$$ s = s + 1;\n");
+        }
+        JxltEngine.Template t = jxlt.createTemplate("$$", new StringReader(source.toString()));
+        Assert.assertEquals(source.toString(), t.toString());
+        // the verbatim text is held once, by the template expressions, not twice
+        long bytes = Footprint.sizeOf(t);
+        Assert.assertTrue(bytes + " bytes", bytes > 2L * text);
+        Assert.assertTrue(bytes + " bytes", bytes < 2L * (2L * text));
+    }
+
+    @Test
+    public void testSharedObjects() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(0).create();
+        JexlScript small = jexl.createScript("x");
+        JexlScript large = jexl.createScript("x + y * 2 - z / 3");
+        // the engine is not counted
+        Assert.assertTrue(jexl.getFootprint(small) < 512);
+        Assert.assertTrue(jexl.getFootprint(small) < jexl.getFootprint(large));
+        JexlExpression expr = jexl.createExpression("x + y * 2 - z / 3");
+        Assert.assertEquals(jexl.getFootprint(large), jexl.getFootprint(expr));
+    }
+
+    @Test
+    public void testCachedExecutors() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(16).create();
+        JexlScript script = jexl.createScript("list.size() + list.get(0)");
+        long before = jexl.getFootprint(script);
+        JexlContext ctxt = new MapContext();
+        ctxt.set("list", Arrays.asList(1, 2, 3));
+        Assert.assertEquals(4, script.execute(ctxt));
+        // the method executors cached in the tree are retained by the script
+        Assert.assertTrue(jexl.getFootprint(script) > before);
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.JexlTestCase;
+import org.apache.commons.jexl3.MapContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the primitive slots of frames.
+ */
+public class FrameTest extends JexlTestCase {
+
+    public FrameTest() {
+        super("FrameTest");
+    }
+
+    /**
+     * An engine keeping the frame of the last created interpreter.
+     */
+    private static class FrameEngine extends Engine {
+        private Scope.Frame frame = null;
+
+        FrameEngine() {
+            super(new JexlBuilder());
+        }
+
+        @Override
+        protected Interpreter createInterpreter(JexlContext context, Scope.Frame eFrame) {
+            frame = eFrame;
+            return super.createInterpreter(context, eFrame);
+        }
+    }
+
+    /**
+     * Executes a script and checks whether its first local variable is unboxed.
+     * @param src the script source
+     * @param expected the expected script result
+     * @return true if the first local variable is an unboxed primitive
+     */
+    private static boolean isUnboxed(String src, Object expected) {
+        FrameEngine engine = new FrameEngine();
+        JexlScript script = engine.createScript(src);
+        Assert.assertEquals(src, expected, script.execute(new MapContext()));
+        return engine.frame.isUnboxed(0);
+    }
+
+    @Test
+    public void testLoopVariableUnboxed() throws Exception {
+        // the self assignment is the last statement of the loop body
+        Assert.assertTrue(isUnboxed("var i = 0; while (i < 1000) { i += 1 } 42", 42));
+        Assert.assertTrue(isUnboxed("var i = 0; while (i < 1000) i += 1; 42", 42));
+        Assert.assertTrue(isUnboxed("var i = 0; for (var x : [1, 2, 3]) { if (x > 1) { i += x } } 42", 42));
+        Assert.assertTrue(isUnboxed("var i = 0; { i += 1; i *= 1000; } 42", 42));
+        // the value of the loop is the script result
+        Assert.assertFalse(isUnboxed("var i = 0; while (i < 1000) { i += 1 }", 1000));
+        // the value of the variable is used
+        Assert.assertFalse(isUnboxed("var i = 0; while (i < 1000) { i += 1 } i", 1000));
+        Assert.assertFalse(isUnboxed("var i = 0; var j = 0; while (i < 1000) { j = (i += 1) } 42", 42));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.jexl3.internal;
+
+import org.apache.commons.jexl3.JexlBuilder;
+import org.apache.commons.jexl3.JexlContext;
+import org.apache.commons.jexl3.JexlEngine;
+import org.apache.commons.jexl3.JexlException;
+import org.apache.commons.jexl3.JexlScript;
+import org.apache.commons.jexl3.JexlTestCase;
+import org.apache.commons.jexl3.MapContext;
+import org.apache.commons.jexl3.parser.ASTAndNode;
+import org.apache.commons.jexl3.parser.ASTForeachStatement;
+import org.apache.commons.jexl3.parser.ASTIdentifierAccess;
+import org.apache.commons.jexl3.parser.ASTMethodNode;
+import org.apache.commons.jexl3.parser.ASTNotNode;
+import org.apache.commons.jexl3.parser.JexlNode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Checks the execution profiler.
+ */
+public class ProfilerTest extends JexlTestCase {
+
+    public ProfilerTest() {
+        super("ProfilerTest");
+    }
+
+    /**
+     * Collects the nodes of a given class in a tree.
+     * @param node the root node
+     * @param clazz the node class
+     * @param nodes the collected nodes
+     * @return the collected nodes
+     */
+    private static List<JexlNode> collect(JexlNode node, Class<?> clazz, List<JexlNode> nodes) {
+        if (clazz.isInstance(node)) {
+            nodes.add(node);
+        }
+        for (int c = 0; c < node.jjtGetNumChildren(); ++c) {
+            collect(node.jjtGetChild(c), clazz, nodes);
+        }
+        return nodes;
+    }
+
+    @Test
+    public void testCounts() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(16).create();
+        JexlScript script = jexl.createScript(
+                "var s = 0;\n"
+                + "for (var x : list) {\n"
+                + "  s = s + x.length();\n"
+                + "}\n"
+                + "s", "list");
+        Profiler profiler = new Profiler();
+        List<String> list = Arrays.asList("a", "bb", "ccc", "dddd");
+        Assert.assertEquals(10, profiler.execute(script, null, list));
+        JexlNode root = ((Script) script).script;
+        JexlNode loop = collect(root, ASTForeachStatement.class, new ArrayList<JexlNode>()).get(0);
+        Profiler.Statistics stats = profiler.getStatistics(loop);
+        Assert.assertEquals(1, stats.getCount());
+        Assert.assertTrue(stats.getTime() > 0);
+        JexlNode call = collect(root, ASTMethodNode.class, new ArrayList<JexlNode>()).get(0);
+        stats = profiler.getStatistics(call);
+        Assert.assertEquals(4, stats.getCount());
+        // the length() executor is resolved once then reused
+        Assert.assertEquals(1, stats.getMisses());
+        Assert.assertEquals(3, stats.getHits());
+        Assert.assertEquals(0, stats.getErrors());
+        String report = profiler.report(script);
+        Assert.assertTrue(report, report.contains("for(var x : list)"));
+        Assert.assertTrue(report, report.contains("x.length()"));
+        // the same script executed normally is not profiled
+        profiler.clear();
+        Assert.assertEquals(10, script.execute(null, list));
+        Assert.assertNull(profiler.getStatistics(loop));
+    }
+
+    @Test
+    public void testLinesAndErrors() throws Exception {
+        JexlEngine jexl = new JexlBuilder().cache(16).strict(true).silent(false).create();
+        JexlScript script = jexl.createScript("var f = (y) -> { y.foo };\nvar r = 0;\nr = f(x);\nr", "x");
+        Profiler profiler = new Profiler(4);
+        JexlContext ctxt = new MapContext();
+        try {
+            profiler.execute(script, ctxt, "abc");
+            Assert.fail("should have failed");
+        } catch (JexlException xjexl) {
+            // expected
+        }
+        JexlNode root = ((Script) script).script;
+        List<JexlNode> accesses = collect(root, ASTIdentifierAccess.class, new ArrayList<JexlNode>());
+        Profiler.Statistics stats = profiler.getStatistics(accesses.get(0));
+        Assert.assertEquals(1, stats.getErrors());
+        String report = profiler.report(script);
+        // errors are only counted once, on the failing node
+        int errors = 0;
+        for (String line : report.split("\n")) {
+            String[] cols = line.trim().split("\\s+");
+            if (cols.length > 6 && cols[0].matches("\\d+") && !"0".equals(cols[6])) {
+                errors += 1;
+                Assert.assertEquals(line, "1", cols[0]);
+            }
+        }
+        Assert.assertEquals(report, 1, errors);
+        Assert.assertTrue(report, report.contains("r = f(x)"));
+    }
+
+    @Test
+    public void testPrimitiveCounts() throws Exception {
+        JexlEngine jexl = new JexlBuilder().create();
+        Script script = (Script) jexl.createScript("x > 1 && !(x > 5)", "x");
+        Profiler profiler = new Profiler();
+        // the logical nodes evaluated as primitives are profiled too
+        Scope.Frame frame = script.createFrame(new Object[]{3});
+        Interpreter interpreter = new ProfilingInterpreter(script.jexl, null, frame, profiler);
+        Assert.assertTrue(interpreter.interpretBoolean(script.script));
+        JexlNode and = collect(script.script, ASTAndNode.class, new ArrayList<JexlNode>()).get(0);
+        Assert.assertEquals(1, profiler.getStatistics(and).getCount());
+        JexlNode not = collect(script.script, ASTNotNode.class, new ArrayList<JexlNode>()).get(0);
+        Assert.assertEquals(1, profiler.getStatistics(not).getCount());
+    }
+}
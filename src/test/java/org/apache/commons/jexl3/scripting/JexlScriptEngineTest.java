@@ -25,6 +25,7 @@ import java.util.Map;
 
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
+import org.apache.commons.jexl3.JexlScript;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -45,6 +46,7 @@ public class JexlScriptEngineTest {
         Assert.assertEquals("JEXL", factory.getParameter(ScriptEngine.LANGUAGE));
         Assert.assertEquals("3.2", factory.getParameter(ScriptEngine.LANGUAGE_VERSION));
         Assert.assertNull(factory.getParameter("THREADING"));
+        Assert.assertEquals(256, factory.getParameter(JexlScriptEngineFactory.SCRIPT_CACHE_SIZE));
         Assert.assertEquals(NAMES, factory.getParameter(ScriptEngine.NAME));
         Assert.assertEquals(EXTENSIONS, factory.getExtensions());
         Assert.assertEquals(MIMES, factory.getMimeTypes());
@@ -99,6 +101,38 @@ public class JexlScriptEngineTest {
         Assert.assertEquals(System.class,engine.eval("JEXL.System"));
     }
 
+    @Test
+    public void testScriptCache() throws Exception {
+        for (int size : new int[]{0, 2}) {
+            JexlScriptEngineFactory factory = new JexlScriptEngineFactory(size);
+            Assert.assertEquals(size, factory.getParameter(JexlScriptEngineFactory.SCRIPT_CACHE_SIZE));
+            ScriptEngine engine = factory.getScriptEngine();
+            engine.put("x", 0);
+            for (int i = 0; i < 5; ++i) {
+                Assert.assertEquals(i + 1, engine.eval("x = x + 1"));
+                Assert.assertEquals(i + 1, engine.eval("x"));
+                Assert.assertEquals(i + 2, engine.eval("x + 1"));
+            }
+            Assert.assertEquals(5, engine.get("x"));
+        }
+    }
+
+    @Test
+    public void testScriptCacheReuse() throws Exception {
+        JexlScriptEngine engine = (JexlScriptEngine) new JexlScriptEngineFactory(2).getScriptEngine();
+        JexlScript x = engine.cachedScript("x");
+        JexlScript y = engine.cachedScript("y");
+        Assert.assertSame(x, engine.cachedScript("x"));
+        // y is the least recently used, it is evicted when a third script is cached
+        JexlScript z = engine.cachedScript("z");
+        Assert.assertSame(x, engine.cachedScript("x"));
+        Assert.assertSame(z, engine.cachedScript("z"));
+        Assert.assertNotSame(y, engine.cachedScript("y"));
+        // no cache, no reuse
+        engine = (JexlScriptEngine) new JexlScriptEngineFactory(0).getScriptEngine();
+        Assert.assertNotSame(engine.cachedScript("x"), engine.cachedScript("x"));
+    }
+
     @Test
     public void testNulls() throws Exception {
         ScriptEngineManager manager = new ScriptEngineManager();